@@ -0,0 +1,32 @@
+package benchmarks;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.function.LongSupplier;
+
+/**
+ * Looks up the operations measured by name from the cases of the Benchmark smoke runner. JMH
+ * only runs benchmarks in a named package and Java cannot import from the unnamed package the
+ * game is in, so the operation is fetched reflectively once per trial; the measured call is then
+ * a plain interface call, the same in every iteration.
+ */
+final class Cases
+{
+    private Cases()
+    {
+    }
+
+    /**
+     *Gets the operation of a case.
+     *pre: name is the name of a Benchmark case
+     *post: returns a fresh operation
+     */
+    static LongSupplier get(String name) throws Exception
+    {
+        try {
+            return (LongSupplier)Class.forName("Benchmark").getMethod("operation", String.class)
+                                      .invoke(null, name);
+        } catch(InvocationTargetException e) {
+            throw (Exception)e.getCause();
+        }
+    }
+}
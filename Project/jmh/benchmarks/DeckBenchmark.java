@@ -0,0 +1,45 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Drawing 1-5 cards: Deck.sample into a HandBits, and Deck.deal of Cards from a restored deck.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DeckBenchmark
+{
+    @Param({ "deck.sample.1", "deck.sample.2", "deck.sample.3", "deck.sample.4", "deck.sample.5",
+             "deck.deal.1", "deck.deal.2", "deck.deal.3", "deck.deal.4", "deck.deal.5" })
+    public String name;
+
+    private LongSupplier operation;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        operation = Cases.get(name);
+    }
+
+    @Benchmark
+    public long draw()
+    {
+        return operation.getAsLong();
+    }
+}
@@ -0,0 +1,45 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Ranking one hand of the fixed corpus: HandEvaluator's table lookup, Player.getHandRank on top
+ * of it, and the original sorting evaluator.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class EvaluatorBenchmark
+{
+    @Param({ "evaluator.handEvaluator", "evaluator.player", "evaluator.playerSorted" })
+    public String name;
+
+    private LongSupplier operation;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        operation = Cases.get(name);
+    }
+
+    @Benchmark
+    public long rank()
+    {
+        return operation.getAsLong();
+    }
+}
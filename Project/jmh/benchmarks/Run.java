@@ -0,0 +1,45 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Main class of benchmarks.jar: JMH's command line, with the gc profiler and a JSON result file
+ * (jmh-result.json) unless the command line picks its own profilers or result format.
+ *
+ * Usage: java -jar target/benchmarks.jar [JMH options] [benchmark regexps]
+ */
+public class Run
+{
+    public static void main(String[] args) throws Exception
+    {
+        CommandLineOptions options = new CommandLineOptions(args);
+
+        if(options.shouldHelp()) {
+            options.showHelp();
+            return;
+        }
+
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(options);
+
+        if(options.getProfilers().isEmpty())
+            builder.addProfiler(GCProfiler.class);
+
+        if(!options.getResultFormat().hasValue())
+            builder.resultFormat(ResultFormatType.JSON);
+
+        if(!options.getResult().hasValue())
+            builder.result("jmh-result.json");
+
+        Runner runner = new Runner(builder.build());
+
+        if(options.shouldList())
+            runner.list();
+        else
+            runner.run();
+    }
+}
@@ -0,0 +1,49 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One whole hold decision for a pat royal, four to a royal and a garbage hand, by the sampled,
+ * adaptive, exact and branch and bound strategies. The sampled ones use the common pool.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class StrategyBenchmark
+{
+    @Param({ "strategy.optimal.pat", "strategy.optimal.fourToRoyal", "strategy.optimal.garbage",
+             "strategy.adaptive.pat", "strategy.adaptive.fourToRoyal",
+             "strategy.adaptive.garbage",
+             "strategy.exact.pat", "strategy.exact.fourToRoyal", "strategy.exact.garbage",
+             "strategy.bound.pat", "strategy.bound.fourToRoyal", "strategy.bound.garbage" })
+    public String name;
+
+    private LongSupplier operation;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        operation = Cases.get(name);
+    }
+
+    @Benchmark
+    public long decide()
+    {
+        return operation.getAsLong();
+    }
+}
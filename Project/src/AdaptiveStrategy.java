@@ -0,0 +1,348 @@
+import java.util.ArrayList;
+
+/**
+ * Monte Carlo hold choice that spends its samples where the decision is close. Draws are taken
+ * in rounds and every hold still in the running is scored on the same draws (common random
+ * numbers), a hold drawing k cards taking the first k cards of each draw, so the differences
+ * between holds are far less noisy than their payouts. The first card of the draws is
+ * stratified: each round draws samplesPerStratum times with each card left in the deck first.
+ * The royal flush pays so much more than anything else and is so rare that a few samples decide
+ * its share, so its chance is counted exactly for each hold and only the other ranks sampled.
+ *
+ * After each round the mean of the round is a sample of each hold's payout, and the rounds give
+ * a paired confidence interval on how far each hold is behind the leader. A hold is dropped once
+ * that interval is above zero, and sampling stops when one hold is left, when every other hold
+ * is known to be within tolerance of the leader, or after maxRounds rounds. Since the intervals
+ * are looked at after every round, their width after round r is set for an error rate of
+ * errorRate / (31 r (r + 1)), which adds up to at most errorRate over all comparisons and rounds.
+ */
+public class AdaptiveStrategy implements HoldStrategy
+{
+    public static final int numChoices = 32;
+    public static final int royalFlush = 9;
+    public static final int samplesPerStratum = 16;
+    public static final int minRounds = 8;
+    public static final int maxRounds = 1000;
+
+    // NOTE: The chance of ending with a hold more than defaultTolerance coins
+    // worse than the best, if the round means are close to normal.
+    public static final double defaultErrorRate = 0.001;
+    public static final double defaultTolerance = 0.005;
+
+    private final int[] payoutTable;
+    private final double errorRate;
+    private final double tolerance;
+
+    /**
+     * The outcome of one decision: the estimates of every hold and the work done.
+     */
+    public static class Result
+    {
+        private final int bestHold;
+        private final float[] expectedPayouts;
+        private final float[] standardErrors;
+        private final int numRounds;
+        private final long numEvaluations;
+        private final int numLeft;
+
+        private Result(int bestHold, float[] expectedPayouts, float[] standardErrors,
+                       int numRounds, long numEvaluations, int numLeft)
+        {
+            this.bestHold = bestHold;
+            this.expectedPayouts = expectedPayouts;
+            this.standardErrors = standardErrors;
+            this.numRounds = numRounds;
+            this.numEvaluations = numEvaluations;
+            this.numLeft = numLeft;
+        }
+
+        public int getBestHold()
+        {
+            return bestHold;
+        }
+
+        /**
+         *Gets the estimated expected payout of every hold.
+         *pre: none
+         *post: returns the mean payout of each hold over the rounds it was sampled in
+         */
+        public float[] getExpectedPayouts()
+        {
+            return expectedPayouts.clone();
+        }
+
+        public float[] getStandardErrors()
+        {
+            return standardErrors.clone();
+        }
+
+        public int getNumRounds()
+        {
+            return numRounds;
+        }
+
+        /**
+         *Gets the number of hands ranked, summed over the holds.
+         *pre: none
+         *post: returns the evaluations done for the decision
+         */
+        public long getNumEvaluations()
+        {
+            return numEvaluations;
+        }
+
+        /**
+         *Gets the number of holds still in the running when sampling stopped.
+         *pre: none
+         *post: returns 1 when the best hold was separated from all others
+         */
+        public int getNumLeft()
+        {
+            return numLeft;
+        }
+    }
+
+    /**
+     *Constructor method for a strategy deciding with the default confidence.
+     *pre: payoutTable has an entry per rank
+     *post: variables are initialised
+     */
+    public AdaptiveStrategy(int[] payoutTable)
+    {
+        this(payoutTable, defaultErrorRate, defaultTolerance);
+    }
+
+    /**
+     *Constructor method for a strategy deciding with a given confidence.
+     *pre: payoutTable has an entry per rank, 0 < errorRate < 1, tolerance >= 0
+     *post: decisions are wrong by more than tolerance with chance about errorRate at most
+     */
+    public AdaptiveStrategy(int[] payoutTable, double errorRate, double tolerance)
+    {
+        this.payoutTable = payoutTable.clone();
+        this.errorRate = errorRate;
+        this.tolerance = tolerance;
+    }
+
+    @Override
+    public int chooseHold(HandBits dealt, Deck deck)
+    {
+        return solve(dealt, deck).getBestHold();
+    }
+
+    /**
+     *Estimates the holds of a deal until the best is known.
+     *pre: dealt holds 5 cards, deck holds the cards left after the deal
+     *post: returns the estimates; deck is unchanged but its generator has moved on
+     */
+    public Result solve(HandBits dealt, Deck deck)
+    {
+        int handSize = dealt.size();
+        ArrayList<Card> left = deck.getCards();
+        int numCards = left.size();
+        RandomSource random = deck.splitRandom();
+
+        int[] cards = new int[numCards];
+        int[] position = new int[Card.NUM_CARDS]; // where each card is in cards
+        for(int i = 0; i < numCards; ++i) {
+            cards[i] = left.get(i).getIndex();
+            position[cards[i]] = i;
+        }
+        int[] strata = cards.clone();
+
+        // hands[h] holds the cards held by h followed by room for its draw
+        int[][] hands = new int[numChoices][handSize];
+        int[] numHeld = new int[numChoices];
+        for(int h = 0; h < numChoices; ++h)
+            for(int j = 0; j < handSize; ++j)
+                if(((h >> j) & 1) == 1)
+                    hands[h][numHeld[h]++] = dealt.get(j);
+
+        // exact share of the royal flush in each hold's payout; the samples pay it nothing
+        boolean[] inDeck = new boolean[Card.NUM_CARDS];
+        for(int card : cards)
+            inDeck[card] = true;
+
+        double[] royalPayouts = new double[numChoices];
+        for(int h = 0; h < numChoices; ++h)
+            royalPayouts[h] = royalChance(hands[h], numHeld[h], inDeck, numCards)
+                              * payoutTable[royalFlush];
+
+        int[] sampledPayouts = payoutTable.clone();
+        sampledPayouts[royalFlush] = 0;
+
+        int[] aliveHolds = new int[numChoices];
+        int[] roundsSampled = new int[numChoices];
+        int numAlive = numChoices;
+        for(int h = 0; h < numChoices; ++h)
+            aliveHolds[h] = h;
+
+        // sums over rounds of each hold's round mean, and of the products of round means
+        double[] sums = new double[numChoices];
+        double[][] products = new double[numChoices][numChoices];
+        long[] roundPayouts = new long[numChoices];
+        double[] roundMeans = new double[numChoices];
+        int[] drawn = new int[handSize];
+        int samplesPerRound = samplesPerStratum * numCards;
+        long numEvaluations = 0;
+        int numRounds = 0;
+        int leader = 0;
+
+        while(numAlive > 1 && numRounds < maxRounds) {
+            for(int a = 0; a < numAlive; ++a)
+                roundPayouts[aliveHolds[a]] = 0;
+
+            for(int s = 0; s < numCards; ++s)
+                for(int k = 0; k < samplesPerStratum; ++k) {
+                    draw(cards, position, strata[s], drawn, handSize, random);
+
+                    for(int a = 0; a < numAlive; ++a) {
+                        int h = aliveHolds[a];
+                        int[] hand = hands[h];
+
+                        for(int j = numHeld[h]; j < handSize; ++j)
+                            hand[j] = drawn[j - numHeld[h]];
+
+                        roundPayouts[h] += sampledPayouts[HandEvaluator.rank(hand)];
+                    }
+
+                    numEvaluations += numAlive;
+                }
+
+            ++numRounds;
+
+            for(int a = 0; a < numAlive; ++a) {
+                int h = aliveHolds[a];
+                roundMeans[h] = (double)roundPayouts[h] / samplesPerRound + royalPayouts[h];
+                sums[h] += roundMeans[h];
+                ++roundsSampled[h];
+
+                for(int b = 0; b <= a; ++b) {
+                    int g = aliveHolds[b];
+                    products[h][g] += roundMeans[h] * roundMeans[g];
+                    products[g][h] = products[h][g];
+                }
+            }
+
+            leader = aliveHolds[0];
+            for(int a = 1; a < numAlive; ++a)
+                if(sums[aliveHolds[a]] > sums[leader])
+                    leader = aliveHolds[a];
+
+            if(numRounds < minRounds)
+                continue;
+
+            // Gaussian tail bound: P(Z > z) <= exp(-z^2 / 2)
+            double z = Math.sqrt(2 * Math.log((numChoices - 1) * (double)numRounds
+                                              * (numRounds + 1) / errorRate));
+            boolean allClose = true;
+            int next = 0;
+
+            for(int a = 0; a < numAlive; ++a) {
+                int h = aliveHolds[a];
+                double gap = (sums[leader] - sums[h]) / numRounds;
+                double error = gapError(sums, products, leader, h, numRounds);
+
+                if(h != leader && gap - z * error > 0)
+                    continue;
+
+                if(gap + z * error >= tolerance)
+                    allClose = false;
+
+                aliveHolds[next++] = h;
+            }
+
+            numAlive = next;
+
+            if(allClose)
+                break;
+        }
+
+        float[] expectedPayouts = new float[numChoices];
+        float[] standardErrors = new float[numChoices];
+        for(int h = 0; h < numChoices; ++h) {
+            expectedPayouts[h] = (float)(sums[h] / roundsSampled[h]);
+            standardErrors[h] = (float)ownError(sums, products, h, roundsSampled[h]);
+        }
+
+        return new Result(leader, expectedPayouts, standardErrors, numRounds, numEvaluations,
+                          numAlive);
+    }
+
+    // Chance that drawing to the first numHeld cards of hand makes a royal flush: the held cards
+    // must all be royal cards of one suit and the rest of that suit's royal cards in the deck.
+    private static double royalChance(int[] hand, int numHeld, boolean[] inDeck, int numCards)
+    {
+        int numDrawn = hand.length - numHeld;
+        int ways = 0;
+
+        for(int suit = 0; suit < 4; ++suit) {
+            int found = 0;
+            boolean possible = true;
+
+            for(int i = 0; i < numHeld; ++i)
+                possible &= (hand[i] & 3) == suit && (hand[i] >> 2) >= 10 - 2;
+
+            for(int rank = 10; rank <= 14 && possible; ++rank) {
+                int card = ((rank - 2) << 2) | suit;
+                if(inDeck[card])
+                    ++found;
+            }
+
+            if(possible && found == numDrawn)
+                ++ways;
+        }
+
+        return (double)ways / CanonicalHand.binomial(numCards, numDrawn);
+    }
+
+    // Draws numDrawn cards into drawn, the first one being first, the rest uniformly at random
+    // from the others (partial Fisher-Yates, keeping position up to date).
+    private static void draw(int[] cards, int[] position, int first, int[] drawn, int numDrawn,
+                             RandomSource random)
+    {
+        int end = cards.length - 1;
+        swap(cards, position, position[first], end);
+        drawn[0] = first;
+
+        for(int i = 1; i < numDrawn; ++i) {
+            int last = end - i;
+            swap(cards, position, random.nextInt(last + 1), last);
+            drawn[i] = cards[last];
+        }
+    }
+
+    private static void swap(int[] cards, int[] position, int i, int j)
+    {
+        int temp = cards[i];
+        cards[i] = cards[j];
+        cards[j] = temp;
+        position[cards[i]] = i;
+        position[cards[j]] = j;
+    }
+
+    // Standard error of the mean difference of the round means of holds a and b.
+    private static double gapError(double[] sums, double[][] products, int a, int b, int numRounds)
+    {
+        if(numRounds < 2)
+            return Double.POSITIVE_INFINITY;
+
+        double sum = sums[a] - sums[b];
+        double sumOfSquares = products[a][a] - 2 * products[a][b] + products[b][b];
+        double variance = Math.max(sumOfSquares - sum * sum / numRounds, 0) / (numRounds - 1);
+
+        return Math.sqrt(variance / numRounds);
+    }
+
+    // Standard error of the mean of the round means of hold h.
+    private static double ownError(double[] sums, double[][] products, int h, int numRounds)
+    {
+        if(numRounds < 2)
+            return Double.POSITIVE_INFINITY;
+
+        double variance = Math.max(products[h][h] - sums[h] * sums[h] / numRounds, 0)
+                          / (numRounds - 1);
+
+        return Math.sqrt(variance / numRounds);
+    }
+}
@@ -0,0 +1,311 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongSupplier;
+
+/**
+ * The benchmark cases of the hot paths: hand evaluation over a fixed corpus, sampling and dealing
+ * 1-5 cards, and whole optimal/adaptive/exact/bound strategy decisions for representative hands.
+ * The JMH benchmarks in jmh/benchmarks measure them properly (forked, with the gc profiler); see
+ * pom.xml. Run on its own, this is a quick smoke run without a build: each case is warmed up,
+ * then timed in batches in this JVM, with allocation per operation read from the per-thread
+ * allocation counters. Results are printed and written as JSON.
+ *
+ * Usage: java Benchmark [output file] [warmup ms] [measure ms] [case name filter]
+ */
+public class Benchmark
+{
+    public static final int corpusSize = 4096;
+    public static final long corpusSeed = 3808;
+
+    // Keeps results alive so the JIT cannot drop the work
+    public static long sink = 0;
+
+    private static abstract class Case implements LongSupplier {
+        private final String name;
+
+        private Case(String name) {
+            this.name = name;
+        }
+
+        // Runs the operation once, returning something derived from its result
+        abstract long run();
+
+        @Override
+        public long getAsLong() {
+            return run();
+        }
+    }
+
+    private static class Result {
+        private final String name;
+        private final long ops;
+        private final double nsPerOp;
+        private final double bytesPerOp;
+
+        private Result(String name, long ops, double nsPerOp, double bytesPerOp) {
+            this.name = name;
+            this.ops = ops;
+            this.nsPerOp = nsPerOp;
+            this.bytesPerOp = bytesPerOp;
+        }
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        String output = (args.length > 0) ? args[0] : "benchmark.json";
+        long warmupMs = (args.length > 1) ? Long.parseLong(args[1]) : 2000;
+        long measureMs = (args.length > 2) ? Long.parseLong(args[2]) : 5000;
+        String filter = (args.length > 3) ? args[3] : "";
+
+        ArrayList<Result> results = new ArrayList<Result>();
+
+        System.out.format("%n%-32s %14s %14s %12s %n", "Benchmark", "ns/op", "ops/s", "B/op");
+
+        for(Case c : cases()) {
+            if(!c.name.contains(filter))
+                continue;
+
+            Result result = measure(c, warmupMs, measureMs);
+            results.add(result);
+
+            System.out.format("%-32s %14.1f %14.0f %12.1f %n", result.name, result.nsPerOp,
+                              1e9 / result.nsPerOp, result.bytesPerOp);
+        }
+
+        writeJson(results, output);
+        System.out.println("\nWrote " + output);
+    }
+
+    /**
+     *Gets the operation of a case, for the JMH benchmarks.
+     *pre: name is the name of a case, e.g. "deck.sample.5"
+     *post: returns a fresh operation, or throws IllegalArgumentException for an unknown name
+     */
+    public static LongSupplier operation(String name) throws IOException
+    {
+        for(Case c : cases())
+            if(c.name.equals(name))
+                return c;
+
+        throw new IllegalArgumentException("No benchmark case " + name);
+    }
+
+    private static ArrayList<Case> cases() throws IOException
+    {
+        ArrayList<Case> cases = new ArrayList<Case>();
+
+        final int[][] corpus = corpus();
+        final ArrayList<ArrayList<Card>> cardCorpus = new ArrayList<ArrayList<Card>>(corpusSize);
+        for(int[] hand : corpus) {
+            HandBits bits = new HandBits();
+            for(int card : hand)
+                bits.add(card);
+            cardCorpus.add(bits.toCards());
+        }
+
+        cases.add(new Case("evaluator.handEvaluator") {
+            private int next = 0;
+
+            @Override
+            long run() {
+                next = (next + 1) & (corpusSize - 1);
+                return HandEvaluator.rank(corpus[next]);
+            }
+        });
+
+        for(final boolean sorted : new boolean[] { true, false })
+            cases.add(new Case(sorted ? "evaluator.playerSorted" : "evaluator.player") {
+                private final Player player = new Player();
+                private int next = 0;
+
+                @Override
+                long run() {
+                    next = (next + 1) & (corpusSize - 1);
+                    player.setHand(cardCorpus.get(next));
+                    return sorted ? player.getSortedHandRank() : player.getHandRank();
+                }
+            });
+
+        for(int n = 1; n <= Poker.handSize; ++n) {
+            final int numCards = n;
+
+            cases.add(new Case("deck.sample." + numCards) {
+                private final Deck deck = new Deck(new Xoroshiro128PlusPlus(corpusSeed));
+                private final HandBits hand = new HandBits();
+
+                @Override
+                long run() {
+                    hand.clear();
+                    deck.sample(hand, numCards);
+                    return hand.getMask();
+                }
+            });
+
+            cases.add(new Case("deck.deal." + numCards) {
+                private final Deck deck = new Deck(new Xoroshiro128PlusPlus(corpusSeed));
+
+                @Override
+                long run() {
+                    deck.restore();
+                    return deck.deal(numCards).size();
+                }
+            });
+        }
+
+        String[][] hands = { { "pat", "14s", "13s", "12s", "11s", "10s" },
+                             { "fourToRoyal", "14s", "13s", "12s", "11s", "2d" },
+                             { "garbage", "2c", "4d", "7h", "9s", "13c" } };
+
+        // NOTE: Never run, only used for its strategies, which sample on the
+        // common pool; its iteration count is left at the default.
+        final SimulationEngine engine =
+            new SimulationEngine(new SimulationConfig.Builder()
+                                     .numPlays(0).seed(corpusSeed)
+                                     .parallelism(ForkJoinPool.getCommonPoolParallelism())
+                                     .build(),
+                                 ForkJoinPool.commonPool(), new Metrics("Benchmark"));
+        final int[] payoutTable = engine.getConfig().getPayoutTable();
+
+        for(String[] hand : hands) {
+            final Player player = new Player();
+            final Deck deck = new Deck(new Xoroshiro128PlusPlus(corpusSeed));
+
+            for(int i = 1; i < hand.length; ++i) {
+                String card = hand[i];
+                Card dealt = Card.of(Integer.parseInt(card.substring(0, card.length() - 1)),
+                                     card.charAt(card.length() - 1));
+                deck.deal(dealt);
+                player.addCard(dealt);
+            }
+
+            cases.add(new Case("strategy.optimal." + hand[0]) {
+                @Override
+                long run() {
+                    Object choice = engine.optimalStrategy(player, deck);
+                    return choice.hashCode();
+                }
+            });
+
+            cases.add(new Case("strategy.adaptive." + hand[0]) {
+                @Override
+                long run() {
+                    Object choice = engine.adaptiveStrategy(player, deck);
+                    return choice.hashCode();
+                }
+            });
+
+            cases.add(new Case("strategy.exact." + hand[0]) {
+                @Override
+                long run() {
+                    Object choice = engine.exactStrategy(player, deck);
+                    return choice.hashCode();
+                }
+            });
+
+            final BranchAndBound bound = new BranchAndBound(payoutTable);
+            final int[] dealt = HandBits.of(player.getHand()).getCards();
+
+            cases.add(new Case("strategy.bound." + hand[0]) {
+                @Override
+                long run() {
+                    return bound.bestHold(dealt);
+                }
+            });
+        }
+
+        return cases;
+    }
+
+    // A fixed corpus of hands drawn with a fixed seed, so every run ranks the same hands
+    private static int[][] corpus()
+    {
+        Deck deck = new Deck(new Xoroshiro128PlusPlus(corpusSeed));
+        HandBits hand = new HandBits();
+        int[][] corpus = new int[corpusSize][];
+
+        for(int i = 0; i < corpusSize; ++i) {
+            hand.clear();
+            deck.sample(hand, Poker.handSize);
+            corpus[i] = new int[Poker.handSize];
+            System.arraycopy(hand.getCards(), 0, corpus[i], 0, Poker.handSize);
+        }
+
+        return corpus;
+    }
+
+    private static Result measure(Case c, long warmupMs, long measureMs)
+    {
+        runFor(c, warmupMs);
+
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        long ops = runFor(c, measureMs);
+        long elapsed = System.nanoTime() - start;
+        bytes = allocatedBytes() - bytes;
+
+        return new Result(c.name, ops, (double)elapsed / ops, (double)bytes / ops);
+    }
+
+    // Runs batches of doubling size until the time is up, returns the number of operations
+    private static long runFor(Case c, long millis)
+    {
+        long end = System.nanoTime() + millis * 1000000L;
+        long ops = 0;
+        long result = 0;
+
+        for(int batch = 1; System.nanoTime() < end; batch = Math.min(batch * 2, 1 << 20)) {
+            for(int i = 0; i < batch; ++i)
+                result += c.run();
+            ops += batch;
+        }
+
+        sink += result;
+        return ops;
+    }
+
+    // Bytes allocated so far by all live threads, or 0 where the JVM does not count them
+    private static long allocatedBytes()
+    {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        if(!(threads instanceof com.sun.management.ThreadMXBean))
+            return 0;
+
+        long total = 0;
+        for(long bytes : ((com.sun.management.ThreadMXBean)threads)
+                         .getThreadAllocatedBytes(threads.getAllThreadIds()))
+            total += Math.max(bytes, 0);
+
+        return total;
+    }
+
+    private static void writeJson(ArrayList<Result> results, String file) throws IOException
+    {
+        PrintWriter out = new PrintWriter(new FileWriter(file));
+        try {
+            out.println("{");
+            out.format("  \"timestamp\": %d,%n", System.currentTimeMillis());
+            out.format("  \"java\": \"%s\",%n", System.getProperty("java.version"));
+            out.format("  \"cores\": %d,%n", Runtime.getRuntime().availableProcessors());
+            out.println("  \"results\": [");
+
+            for(int i = 0; i < results.size(); ++i) {
+                Result r = results.get(i);
+                out.format("    { \"benchmark\": \"%s\", \"ops\": %d, \"nsPerOp\": %.3f, "
+                           + "\"opsPerSec\": %.3f, \"bytesPerOp\": %.3f }%s%n",
+                           r.name, r.ops, r.nsPerOp, 1e9 / r.nsPerOp, r.bytesPerOp,
+                           (i < results.size() - 1) ? "," : "");
+            }
+
+            out.println("  ]");
+            out.println("}");
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exact hold choice that only solves the holds that could be best. The hands of a rank that
+ * hold H and avoid the discards are among all hands of that rank containing H, so the payouts
+ * of those hands over the number of draws bound the expected payout of H from above, at the cost
+ * of one table lookup instead of the 2^(cards discarded) of solving it (see ExactStrategy). Holds
+ * are solved in order of decreasing bound, and once the best expected payout found so far beats
+ * a bound, that hold and all the ones after it are pruned.
+ *
+ * The choice is the one ExactStrategy.bestChoice makes: a hold is only pruned when its bound,
+ * rounded like the expected payouts, is below the best so far, and ties go to the lowest hold.
+ */
+public class BranchAndBound implements HoldStrategy
+{
+    public static final int numChoices = 32;
+
+    private final int[] payoutTable;
+
+    private final AtomicLong decisions = new AtomicLong();
+    private final AtomicLong pruned = new AtomicLong();
+
+    /**
+     *Constructor method for a solver of a paytable.
+     *pre: payoutTable has an entry per rank
+     *post: variables are initialised
+     */
+    public BranchAndBound(int[] payoutTable)
+    {
+        this.payoutTable = payoutTable.clone();
+    }
+
+    /**
+     *Gets the optimal hold of a dealt hand when the other 47 cards are left to draw.
+     *pre: cards holds 5 distinct card indices
+     *post: returns the best hold, bit j set when cards[j] is held
+     */
+    public int bestHold(int[] cards)
+    {
+        int numRanks = payoutTable.length;
+        int[] subsets = ExactStrategy.subsetIndices(cards);
+        int[] counts = new int[numRanks];
+        int[] holds = new int[numChoices];
+        double[] bounds = new double[numChoices];
+
+        for(int hold = 0; hold < numChoices; ++hold) {
+            Arrays.fill(counts, 0);
+            ExactStrategy.supersetCounts(subsets, hold, 1, counts);
+
+            holds[hold] = hold;
+            bounds[hold] = expectedPayout(counts, draws(hold));
+        }
+
+        // Insertion sort by decreasing bound, lowest hold first among equal bounds
+        for(int i = 1; i < numChoices; ++i)
+            for(int j = i; j > 0 && bounds[holds[j]] > bounds[holds[j-1]]; --j) {
+                int temp = holds[j];
+                holds[j] = holds[j-1];
+                holds[j-1] = temp;
+            }
+
+        int bestHold = -1;
+        float bestPayout = 0;
+        int numSolved = 0;
+
+        for(; numSolved < numChoices; ++numSolved) {
+            int hold = holds[numSolved];
+
+            if(bestHold >= 0 && (float)bounds[hold] < bestPayout)
+                break;
+
+            Arrays.fill(counts, 0);
+            ExactStrategy.holdCounts(subsets, hold, counts);
+            float payout = (float)expectedPayout(counts, draws(hold));
+
+            if(bestHold < 0 || payout > bestPayout || (payout == bestPayout && hold < bestHold)) {
+                bestHold = hold;
+                bestPayout = payout;
+            }
+        }
+
+        decisions.incrementAndGet();
+        pruned.addAndGet(numChoices - numSolved);
+
+        return bestHold;
+    }
+
+    /**
+     *Chooses a hold, by branch and bound when deck holds every card but the dealt ones and by
+     *enumerating the draws of deck otherwise.
+     *pre: dealt holds 5 cards, deck holds the cards left to draw
+     *post: returns the best hold, bit j set when card j of dealt is held
+     */
+    @Override
+    public int chooseHold(HandBits dealt, Deck deck)
+    {
+        if(dealt.size() + deck.getCurrentDeckSize() == Card.NUM_CARDS)
+            return bestHold(dealt.getCards());
+
+        int[][] counts = ExactStrategy.holdCounts(dealt.toCards(), deck.getCards());
+        return ExactStrategy.bestChoice(ExactStrategy.expectedPayouts(counts, payoutTable));
+    }
+
+    public long getDecisions()
+    {
+        return decisions.get();
+    }
+
+    public long getPruned()
+    {
+        return pruned.get();
+    }
+
+    @Override
+    public String toString()
+    {
+        long numDecisions = getDecisions();
+
+        return String.format("%d decisions, %.2f of %d holds pruned per decision",
+                             numDecisions,
+                             (numDecisions > 0) ? (double)getPruned() / numDecisions : 0.0,
+                             numChoices);
+    }
+
+    // Number of draws of a hold, 47 choose the number of cards drawn
+    private static int draws(int hold)
+    {
+        return CanonicalHand.binomial(Card.NUM_CARDS - CanonicalHand.handSize,
+                                      CanonicalHand.handSize - Integer.bitCount(hold));
+    }
+
+    private double expectedPayout(int[] counts, int draws)
+    {
+        long payout = 0;
+
+        for(int r = 0; r < counts.length; ++r)
+            payout += (long)counts[r] * payoutTable[r];
+
+        return (double)payout / draws;
+    }
+}
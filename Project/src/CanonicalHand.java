@@ -0,0 +1,254 @@
+/**
+ * Folds five card hands that only differ by a permutation of suits into one canonical class.
+ * Cards are given by their index (see Card.getIndex), hands by the colex rank of their sorted
+ * indices, a number from 0 to 2,598,959.
+ */
+public class CanonicalHand
+{
+    public static final int numCards = 52;
+    public static final int handSize = 5;
+    public static final int numHands = 2598960;
+
+    private static final int[][] binomial = new int[numCards + 1][handSize + 1];
+
+    private static final int[] classOf;        // colex rank of a canonical hand -> class, or -1
+    private static final int[] representative; // class -> colex rank of its canonical hand
+    private static final int[] multiplicity;   // class -> number of deals folded into it
+
+    static
+    {
+        for(int n = 0; n <= numCards; ++n) {
+            binomial[n][0] = 1;
+            for(int k = 1; k <= handSize && k <= n; ++k)
+                binomial[n][k] = binomial[n-1][k-1] + binomial[n-1][k];
+        }
+
+        int[] cards = new int[handSize];
+        int[] canonical = new int[handSize];
+        int[] counts = new int[numHands];
+
+        for(int i = 0; i < handSize; ++i)
+            cards[i] = i;
+
+        do {
+            counts[canonicalize(cards, canonical)] += 1;
+        } while(ExactStrategy.nextCombination(cards, handSize, numCards));
+
+        int numClasses = 0;
+        for(int i = 0; i < numHands; ++i)
+            if(counts[i] > 0)
+                ++numClasses;
+
+        representative = new int[numClasses];
+        multiplicity = new int[numClasses];
+
+        int next = 0;
+        for(int i = 0; i < numHands; ++i) {
+            if(counts[i] > 0) {
+                representative[next] = i;
+                multiplicity[next] = counts[i];
+                counts[i] = next++;
+            } else {
+                counts[i] = -1;
+            }
+        }
+
+        classOf = counts;
+    }
+
+    /**
+     *Gets the number of suit isomorphic classes of five card hands.
+     *pre: none
+     *post: returns the number of classes (134,459)
+     */
+    public static int numClasses()
+    {
+        return representative.length;
+    }
+
+    /**
+     *Gets the number of deals folded into a class.
+     *pre: 0 <= handClass < numClasses()
+     *post: returns the multiplicity of the class
+     */
+    public static int multiplicity(int handClass)
+    {
+        return multiplicity[handClass];
+    }
+
+    /**
+     *Gets the cards of the canonical hand of a class.
+     *pre: 0 <= handClass < numClasses(), cards has room for 5 indices
+     *post: cards holds the card indices of the canonical hand in increasing order
+     */
+    public static void representative(int handClass, int[] cards)
+    {
+        decode(representative[handClass], cards);
+    }
+
+    /**
+     *Gets the class of a hand.
+     *pre: cards holds 5 distinct card indices, canonical has room for 5 indices
+     *post: returns the class of the hand; canonical[j] is the canonical image of cards[j]
+     */
+    public static int classOf(int[] cards, int[] canonical)
+    {
+        return classOf[canonicalize(cards, canonical)];
+    }
+
+    /**
+     *Relabels the suits of a hand so that every suit isomorphic hand gets the same cards.
+     *Suits are ordered by the set of ranks they hold, highest set first, which only leaves
+     *ties between suits holding the same ranks, and swapping those does not change the hand.
+     *pre: cards holds 5 distinct card indices, canonical has room for 5 indices
+     *post: canonical[j] is the relabelled cards[j]; returns the colex rank of the canonical hand
+     */
+    public static int canonicalize(int[] cards, int[] canonical)
+    {
+        int mask0 = 0, mask1 = 0, mask2 = 0, mask3 = 0;
+
+        for(int i = 0; i < handSize; ++i) {
+            int rankBit = 1 << (cards[i] >> 2);
+            switch(cards[i] & 3) {
+                case 0: mask0 |= rankBit; break;
+                case 1: mask1 |= rankBit; break;
+                case 2: mask2 |= rankBit; break;
+                default: mask3 |= rankBit; break;
+            }
+        }
+
+        // NOTE: Each key is a suit's rank set above the suit, lower suits
+        // keying higher on ties, so sorting the keys in decreasing order is a
+        // stable sort of the suits by rank set.
+        int a = (mask0 << 2) | 3, b = (mask1 << 2) | 2, c = (mask2 << 2) | 1, d = mask3 << 2;
+        int temp;
+
+        // Sorting network for four elements, largest first
+        if(a < b) { temp = a; a = b; b = temp; }
+        if(c < d) { temp = c; c = d; d = temp; }
+        if(a < c) { temp = a; a = c; c = temp; }
+        if(b < d) { temp = b; b = d; d = temp; }
+        if(b < c) { temp = b; b = c; c = temp; }
+
+        // new suit of suit s in bits 2s and 2s + 1
+        int newSuits = (1 << (2 * (3 - (b & 3)))) | (2 << (2 * (3 - (c & 3))))
+                     | (3 << (2 * (3 - (d & 3))));
+
+        for(int i = 0; i < handSize; ++i)
+            canonical[i] = (cards[i] & ~3) | ((newSuits >> (2 * (cards[i] & 3))) & 3);
+
+        return colex(canonical);
+    }
+
+    /**
+     *Maps a hold choice over the caller's card order onto the canonical hand's sorted order.
+     *pre: canonical was filled in by classOf or canonicalize
+     *post: returns the hold with bit j moved to the sorted position of canonical[j]
+     */
+    public static int toCanonicalHold(int hold, int[] canonical)
+    {
+        int result = 0;
+
+        for(int j = 0; j < handSize; ++j)
+            if(((hold >> j) & 1) == 1)
+                result |= 1 << sortedPosition(canonical, j);
+
+        return result;
+    }
+
+    /**
+     *Maps a hold choice over the canonical hand's sorted order back onto the caller's cards.
+     *pre: canonical was filled in by classOf or canonicalize
+     *post: returns the hold with the bit of each sorted position moved to the caller's position
+     */
+    public static int fromCanonicalHold(int hold, int[] canonical)
+    {
+        int result = 0;
+
+        for(int j = 0; j < handSize; ++j)
+            if(((hold >> sortedPosition(canonical, j)) & 1) == 1)
+                result |= 1 << j;
+
+        return result;
+    }
+
+    /**
+     *Gets the colex rank of a hand.
+     *pre: cards holds 5 distinct card indices
+     *post: returns a number from 0 to numHands - 1
+     */
+    public static int colex(int[] cards)
+    {
+        int a = cards[0], b = cards[1], c = cards[2], d = cards[3], e = cards[4];
+        int temp;
+
+        // Sorting network for five elements
+        if(a > b) { temp = a; a = b; b = temp; }
+        if(d > e) { temp = d; d = e; e = temp; }
+        if(c > e) { temp = c; c = e; e = temp; }
+        if(c > d) { temp = c; c = d; d = temp; }
+        if(b > e) { temp = b; b = e; e = temp; }
+        if(a > d) { temp = a; a = d; d = temp; }
+        if(a > c) { temp = a; a = c; c = temp; }
+        if(b > d) { temp = b; b = d; d = temp; }
+        if(b > c) { temp = b; b = c; c = temp; }
+
+        return binomial[a][1] + binomial[b][2] + binomial[c][3] + binomial[d][4] + binomial[e][5];
+    }
+
+    /**
+     *Gets the hand with a colex rank.
+     *pre: 0 <= index < numHands, cards has room for 5 indices
+     *post: cards holds the card indices of the hand in increasing order
+     */
+    public static void decode(int index, int[] cards)
+    {
+        int card = numCards - 1;
+
+        for(int k = handSize; k > 0; --k) {
+            while(binomial[card][k] > index)
+                --card;
+
+            cards[k-1] = card;
+            index -= binomial[card][k];
+            --card;
+        }
+    }
+
+    /**
+     *Gets a binomial coefficient.
+     *pre: 0 <= n <= 52, 0 <= k <= 5
+     *post: returns n choose k
+     */
+    public static int binomial(int n, int k)
+    {
+        return binomial[n][k];
+    }
+
+    /**
+     *Gets the colex rank of a set of cards among the sets of the same size.
+     *pre: sorted holds k strictly increasing card indices, 0 <= k <= 5
+     *post: returns a number from 0 to (52 choose k) - 1
+     */
+    public static int subsetIndex(int[] sorted, int k)
+    {
+        int index = 0;
+
+        for(int i = 0; i < k; ++i)
+            index += binomial[sorted[i]][i + 1];
+
+        return index;
+    }
+
+    // Gets the position canonical[j] would have if canonical were sorted.
+    private static int sortedPosition(int[] canonical, int j)
+    {
+        int position = 0;
+
+        for(int i = 0; i < handSize; ++i)
+            if(canonical[i] < canonical[j])
+                ++position;
+
+        return position;
+    }
+}
@@ -1,5 +1,3 @@
-import javax.swing.ImageIcon;
-
 /**
  *Class that represents a playing card has methods representing the various actions that can be made with a card
  */
@@ -7,10 +5,7 @@ public class Card
 {
     private final int rank; // rank of card 2-14(ace is 14)
     private final char suit;  //suit of card
-
-    //The card image
-    private final ImageIcon pic;
-
+    private final int index;  //index of card 0-51
 
     //The possible suits
     public final static char HEARTS = 'h';
@@ -18,27 +13,50 @@ public class Card
     public final static char DIAMONDS = 'd';
     public final static char SPADES = 's';
 
+    //The suits in deck order, a suit's position is its index
+    public final static char[] SUITS = { CLUBS, DIAMONDS, HEARTS, SPADES };
+
+    public final static int NUM_CARDS = 52;
+
+    //The only instances, indexed by card index
+    private final static Card[] CARDS = new Card[NUM_CARDS];
+
+    static
+    {
+        for(int i = 0; i < NUM_CARDS; i++)
+            CARDS[i] = new Card((i >> 2) + 2, SUITS[i & 3]);
+    }
+
     /**
-     *Constructor method for the Card class.
+     *Constructor method for the Card class. Cards are interned; use of().
      *pre: none
-     *post: variables are initialised, card is assigned an image indicative of its value.
+     *post: variables are initialised.
      */
-    public Card(int rank, char suit)
+    private Card(int rank, char suit)
     {
         this.rank = rank;
         this.suit = suit;
-        this.pic = new ImageIcon(this.getClass().getResource("Cards/" + suit + rank + ".png"));  //Find the image of the card
+        this.index = ((rank - 2) << 2) | suitIndex(suit);
     }
 
+    /**
+     *Gets the card with a rank and suit.
+     *pre: 2 <= rank <= 14, suit is one of the four suits
+     *post: returns the shared instance of the card
+     */
+    public static Card of(int rank, char suit)
+    {
+        return CARDS[((rank - 2) << 2) | suitIndex(suit)];
+    }
 
     /**
-     *Gets the image associated with a card depending on whether or not the card is face-up or face-down.
-     *pre: none
-     *post: returns the image of the card or the card face-down image
+     *Gets the card with an index.
+     *pre: 0 <= index < 52
+     *post: returns the shared instance of the card
      */
-    public ImageIcon getCardImage()
+    public static Card of(int index)
     {
-        return this.pic;
+        return CARDS[index];
     }
 
     /**
@@ -62,15 +80,46 @@ public class Card
     }
 
     /**
-     *Overloaded equals method. Compares another object with this card to see if they are the same.
-     *pre: obj is a valid Object
+     *Gets the index of the card, a number from 0-51 that is 4 * (rank - 2) plus the suit index
+     *pre: none
+     *post: returns index
+     */
+    public int getIndex()
+    {
+        return this.index;
+    }
+
+    /**
+     *Gets the position of a suit in SUITS
+     *pre: suit is one of the four suits
+     *post: returns 0-3
+     */
+    public static int suitIndex(char suit)
+    {
+        switch(suit)
+        {
+            case CLUBS: return 0;
+            case DIAMONDS: return 1;
+            case HEARTS: return 2;
+            default: return 3;
+        }
+    }
+
+    /**
+     *Overloaded equals method. Cards are interned, so a card is only equal to itself.
+     *pre: none
      *post: returns true if obj is the exact same as this card, otherwise false
      */
     @Override
     public boolean equals(Object obj)
     {
-        Card a = (Card)obj;
-        return a.rank == this.rank && a.suit == this.suit;
+        return obj == this;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return this.index;
     }
 
     @Override
@@ -0,0 +1,40 @@
+import java.util.ArrayList;
+
+import javax.swing.ImageIcon;
+
+/**
+ * The image layer of the cards. The model classes never touch AWT or Swing,
+ * so the GUI attaches the card images here. Each image is loaded the first
+ * time it is asked for and shared from then on.
+ */
+public final class CardImages {
+
+    private static final ImageIcon[] IMAGES = new ImageIcon[Card.NUM_CARDS]; // Indexed by card index
+
+    private CardImages() {
+    }
+
+    /**
+     * Gets the image of a card, loading it the first time
+     * @param  card the card
+     * @return      the image of the card
+     */
+    public static synchronized ImageIcon getCardImage(final Card card) {
+        ImageIcon image = IMAGES[card.getIndex()];
+        if (image == null)
+            image = IMAGES[card.getIndex()] = new ImageIcon(CardImages.class.getResource("Cards/" + card.getSuit() + card.getRank() + ".png"));
+        return (image);
+    }
+
+    /**
+     * Gets the images associated with the cards in a hand.
+     * @param  hand the hand, at most 5 cards
+     * @return      an array of 5 images, null where the hand has no card
+     */
+    public static ImageIcon[] getCardImages(final ArrayList<Card> hand) {
+        ImageIcon[] cards = new ImageIcon[5];
+        for (int i=0; i<hand.size(); ++i)
+            cards[i] = getCardImage(hand.get(i));
+        return (cards);
+    }
+}
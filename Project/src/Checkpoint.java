@@ -0,0 +1,350 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The saved state of a long simulation, so a killed run can continue where it stopped. The
+ * state is a set of named sections of bytes: the command line, the results of finished phases,
+ * and the state of each shard of the phase in progress (its deck, its counts and the iterations
+ * it has done), which shards replace after every chunk of iterations. The file is rewritten at
+ * most every intervalMillis while shards report, and whenever a phase finishes.
+ *
+ * Writes go to a temporary file of their own that is synced and then moved over the checkpoint,
+ * so a run killed while writing leaves the previous checkpoint intact.
+ *
+ * Output that grows with the run, such as the text of the plays, goes to logs next to the
+ * checkpoint (its file name plus ".name") instead: a log is only appended to, its owner saves
+ * its length in a section, and a resumed run reads it back to that length. Logs are synced
+ * before every write of the checkpoint, so a saved length is never past the end of its log.
+ *
+ * File layout: a header (magic, version), the command line (count, then each argument) and the
+ * sections (count, then each name, length and bytes), in DataOutputStream encoding.
+ */
+public class Checkpoint
+{
+    public static final int magic = 0x56504350; // "VPCP"
+    public static final int version = 1;
+
+    // NOTE: Shards report their state after this many iterations.
+    public static final int defaultChunkSize = 1 << 22;
+    public static final long defaultIntervalMillis = 60000;
+
+    private final File file;
+    private final String[] args;
+    private final int chunkSize;
+    private final long intervalMillis;
+    private final Map<String, byte[]> sections = new ConcurrentHashMap<String, byte[]>();
+    private final Map<String, FileChannel> logs = new ConcurrentHashMap<String, FileChannel>();
+    private final ReentrantLock writing = new ReentrantLock();
+    private volatile long lastWrite = System.currentTimeMillis();
+
+    /**
+     *Constructor method for the checkpoint of a new run.
+     *pre: args is the command line of the run
+     *post: no sections are saved, nothing is written yet
+     */
+    public Checkpoint(File file, String[] args)
+    {
+        this(file, args, defaultChunkSize, defaultIntervalMillis);
+    }
+
+    /**
+     *Constructor method for the checkpoint of a new run, saved as often as given.
+     *pre: args is the command line of the run, chunkSize > 0, intervalMillis >= 0
+     *post: no sections are saved, nothing is written yet
+     */
+    public Checkpoint(File file, String[] args, int chunkSize, long intervalMillis)
+    {
+        this.file = file;
+        this.args = args.clone();
+        this.chunkSize = chunkSize;
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     *Reads a checkpoint.
+     *pre: file was written by write
+     *post: returns the checkpoint, saved as often as by default, or throws IOException if it is
+     *      not a checkpoint
+     */
+    public static Checkpoint read(File file) throws IOException
+    {
+        return read(file, defaultChunkSize, defaultIntervalMillis);
+    }
+
+    /**
+     *Reads a checkpoint to be saved as often as given.
+     *pre: file was written by write, chunkSize > 0, intervalMillis >= 0
+     *post: returns the checkpoint, or throws IOException if it is not a checkpoint
+     */
+    public static Checkpoint read(File file, int chunkSize, long intervalMillis)
+        throws IOException
+    {
+        DataInputStream in = new DataInputStream(new FileInputStream(file));
+
+        try {
+            if(in.readInt() != magic || in.readInt() != version)
+                throw new IOException(file + " is not a checkpoint");
+
+            String[] args = new String[in.readInt()];
+            for(int i = 0; i < args.length; ++i)
+                args[i] = in.readUTF();
+
+            Checkpoint checkpoint = new Checkpoint(file, args, chunkSize, intervalMillis);
+
+            for(int n = in.readInt(); n > 0; --n) {
+                String name = in.readUTF();
+                byte[] data = new byte[in.readInt()];
+                in.readFully(data);
+                checkpoint.sections.put(name, data);
+            }
+
+            return checkpoint;
+        } finally {
+            in.close();
+        }
+    }
+
+    public File getFile()
+    {
+        return file;
+    }
+
+    /**
+     *Gets the command line of the run.
+     *pre: none
+     *post: returns a copy of the arguments the run was started with
+     */
+    public String[] getArgs()
+    {
+        return args.clone();
+    }
+
+    /**
+     *Gets the number of iterations a shard does between reports of its state.
+     *pre: none
+     *post: returns the chunk size
+     */
+    public int getChunkSize()
+    {
+        return chunkSize;
+    }
+
+    public long getIntervalMillis()
+    {
+        return intervalMillis;
+    }
+
+    /**
+     *Gets a saved section.
+     *pre: none
+     *post: returns a stream over the bytes of the section, or null if it was not saved
+     */
+    public DataInputStream get(String name)
+    {
+        byte[] data = sections.get(name);
+
+        return (data != null) ? new DataInputStream(new ByteArrayInputStream(data)) : null;
+    }
+
+    public boolean has(String name)
+    {
+        return sections.containsKey(name);
+    }
+
+    /**
+     *Saves a section and writes the checkpoint if it is due.
+     *pre: data was written with a DataOutputStream
+     *post: the section is saved; the file is rewritten if intervalMillis has passed since the
+     *      last write and no other thread is writing
+     */
+    public void put(String name, ByteArrayOutputStream data) throws IOException
+    {
+        sections.put(name, data.toByteArray());
+
+        if(System.currentTimeMillis() - lastWrite >= intervalMillis && writing.tryLock()) {
+            try {
+                write();
+            } finally {
+                writing.unlock();
+            }
+        }
+    }
+
+    /**
+     *Saves the result of a finished phase in place of the state of its shards.
+     *pre: the sections of the shards of the phase are named phase/shard
+     *post: the section is saved, the shard sections removed and the file rewritten
+     */
+    public void finish(String phase, ByteArrayOutputStream data) throws IOException
+    {
+        writing.lock();
+
+        try {
+            sections.put(phase, data.toByteArray());
+
+            for(String name : new ArrayList<String>(sections.keySet()))
+                if(name.startsWith(phase + "/"))
+                    sections.remove(name);
+
+            write();
+        } finally {
+            writing.unlock();
+        }
+    }
+
+    /**
+     *Appends to a log.
+     *pre: the log was read back with copyLog first in this run
+     *post: data is at the end of the log; returns the length of the log
+     */
+    public long append(String log, byte[] data) throws IOException
+    {
+        FileChannel channel = log(log);
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        long length = channel.size();
+
+        while(buffer.hasRemaining())
+            length += channel.write(buffer, length);
+
+        return length;
+    }
+
+    /**
+     *Copies a log up to a saved length, dropping whatever was appended after it.
+     *pre: length was returned by append before the section saving it was put, or is 0
+     *post: the first length bytes of the log are written to out; appends follow them
+     */
+    public void copyLog(String log, long length, OutputStream out) throws IOException
+    {
+        FileChannel channel = log(log);
+
+        if(channel.size() < length)
+            throw new IOException(logFile(log) + " is shorter than the checkpoint");
+
+        channel.truncate(length);
+
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        for(long position = 0; position < length; buffer.clear()) {
+            position += channel.read(buffer, position);
+            out.write(buffer.array(), 0, buffer.position());
+        }
+    }
+
+    /**
+     *Writes the checkpoint atomically.
+     *pre: none
+     *post: the logs are synced and the file holds the command line and every saved section
+     */
+    public void write() throws IOException
+    {
+        for(FileChannel log : logs.values())
+            log.force(false);
+
+        Path directory = file.getAbsoluteFile().getParentFile().toPath();
+        Path temp = Files.createTempFile(directory, file.getName() + ".", ".tmp");
+
+        try {
+            FileOutputStream stream = new FileOutputStream(temp.toFile());
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+
+            try {
+                out.writeInt(magic);
+                out.writeInt(version);
+
+                out.writeInt(args.length);
+                for(String arg : args)
+                    out.writeUTF(arg);
+
+                Map<String, byte[]> snapshot = new TreeMap<String, byte[]>(sections);
+                out.writeInt(snapshot.size());
+                for(Map.Entry<String, byte[]> section : snapshot.entrySet()) {
+                    out.writeUTF(section.getKey());
+                    out.writeInt(section.getValue().length);
+                    out.write(section.getValue());
+                }
+
+                out.flush();
+                stream.getFD().sync();
+            } finally {
+                out.close();
+            }
+
+            Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        syncDirectory(directory);
+        lastWrite = System.currentTimeMillis();
+    }
+
+    /**
+     *Removes the checkpoint and its logs once the run is finished.
+     *pre: none
+     *post: the files no longer exist
+     */
+    public void delete() throws IOException
+    {
+        for(Map.Entry<String, FileChannel> log : logs.entrySet()) {
+            log.getValue().close();
+            logFile(log.getKey()).delete();
+        }
+
+        logs.clear();
+        file.delete();
+    }
+
+    private synchronized FileChannel log(String log) throws IOException
+    {
+        FileChannel channel = logs.get(log);
+
+        if(channel == null) {
+            channel = FileChannel.open(logFile(log).toPath(), StandardOpenOption.CREATE,
+                                       StandardOpenOption.READ, StandardOpenOption.WRITE);
+            logs.put(log, channel);
+        }
+
+        return channel;
+    }
+
+    private File logFile(String log)
+    {
+        return new File(file.getPath() + "." + log);
+    }
+
+    // NOTE: Makes the move itself survive a crash; where a directory cannot be
+    // opened (Windows), the move is as durable as the platform makes it.
+    private static void syncDirectory(Path directory)
+    {
+        try {
+            FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ);
+
+            try {
+                channel.force(true);
+            } finally {
+                channel.close();
+            }
+        } catch(IOException e) {
+        }
+    }
+}
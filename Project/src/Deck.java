@@ -1,16 +1,19 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
 
 /**
  * class representing a deck of cards. Can shuffle or deal and has various get methods. creates instances of the card class
  */
 public class Deck
 {
-  public static int cardsPerDeck = 52;
+  public static final int cardsPerDeck = 52;
   
   private int deckSize;
-  private ArrayList<Card> deck;
-  private ArrayList<Card> cardsDealt;
+  private int[] cards; // card indices; cards[0] to cards[top - 1] are still in the deck
+  private int top;     // number of cards still in the deck, the rest have been dealt
+  private RandomSource random;
   
   /**
    *Constructor method for a Deck.
@@ -19,35 +22,7 @@ public class Deck
    */
   public Deck()
   {
-    deckSize = cardsPerDeck;
-    deck = new ArrayList<Card>(cardsPerDeck);
-    cardsDealt = new ArrayList<Card>(cardsPerDeck * 2);
-    
-    char suit = Card.CLUBS; // Initialises the card to a suit
-    for(byte suitCount = 0; suitCount < 4; suitCount++)
-    {
-      switch(suitCount) // Statement that determines the suit of the cards
-      {
-        case 0: suit = Card.CLUBS;
-        break;
-        
-        case 1: suit = Card.DIAMONDS;
-        break;
-        
-        case 2: suit = Card.HEARTS;
-        break;
-        
-        case 3: suit = Card.SPADES;
-        break;
-      }
-      
-      for(byte count = 2; count < 15; count++) //Adds all 13 cards of the current suit
-      {
-        deck.add(new Card(count, suit));
-      }
-    }
-    
-    Collections.shuffle(deck);
+    this(1);
   }
   
   /**
@@ -57,17 +32,41 @@ public class Deck
    * @param NumOfDecks the number of decks
    */
   public Deck(int NumOfDecks)
+  {
+    this(NumOfDecks, new SplittableSource(System.nanoTime()));
+  }
+  
+  /**
+   * Overloaded constructor method for the deck, drawing with a given generator
+   * pre: random is not shared with another thread
+   * post: initialises instance variables. Creates 52 different cards, 13 per suit.
+   * @param random the source of the deck's randomness
+   */
+  public Deck(RandomSource random)
+  {
+    this(1, random);
+  }
+  
+  /**
+   * Overloaded constructor method for multiple decks drawing with a given generator
+   * pre: NumOfDecks > 0, random is not shared with another thread
+   * post: initialises instance variables. Creates 52 different cards, per deck
+   * @param NumOfDecks the number of decks
+   * @param random the source of the deck's randomness
+   */
+  public Deck(int NumOfDecks, RandomSource random)
   {
     deckSize = cardsPerDeck * NumOfDecks;
-    deck = new ArrayList<Card>(cardsPerDeck);
-    cardsDealt = new ArrayList<Card>(cardsPerDeck * 2);
+    cards = new int[deckSize];
+    top = 0;
+    this.random = random;
     
     char suit = Card.CLUBS;
     for(byte decks = 0; decks < NumOfDecks; decks++)
     {
       for(byte suitCount = 0; suitCount < 4; suitCount++)
       {
-        switch(suitCount)
+        switch(suitCount) // Statement that determines the suit of the cards
         {
           case 0: suit = Card.CLUBS;
           break;
@@ -82,21 +81,74 @@ public class Deck
           break;
         }
         
-        for(byte count = 2; count < 15; count++)
+        for(byte count = 2; count < 15; count++) //Adds all 13 cards of the current suit
         {
-          deck.add(new Card(count, suit));
+          cards[top++] = Card.of(count, suit).getIndex();
         }
       }
     }
-    
-    Collections.shuffle(deck);
+  }
+  
+  /**
+   * Creates a full deck of the same size for another thread, drawing from a
+   * stream split off this deck's generator.
+   * pre: none
+   * post: returns a new, restored deck independent of this one
+   */
+  public Deck split()
+  {
+    return new Deck(deckSize / cardsPerDeck, random.split());
+  }
+  
+  /**
+   * Creates a deck holding the cards still in this one, for another thread,
+   * drawing from a stream split off this deck's generator.
+   * pre: none
+   * post: returns a copy of the current deck independent of this one
+   */
+  public Deck splitRemaining()
+  {
+    return new Deck(deckSize, cards.clone(), top, random.split());
+  }
+  
+  /**
+   * Gets a generator split off this deck's, for samplers that draw from a
+   * copy of the cards themselves.
+   * pre: none
+   * post: returns a new generator independent of this deck's
+   */
+  public RandomSource splitRandom()
+  {
+    return random.split();
+  }
+  
+  private Deck(int deckSize, int[] cards, int top, RandomSource random)
+  {
+    this.deckSize = deckSize;
+    this.cards = cards;
+    this.top = top;
+    this.random = random;
   }
   
   // NOTE: For simulation purposes; does not modify deck.
   public ArrayList<Card> sample(int numCards)
   {
-    Collections.shuffle(deck);
-    return new ArrayList<Card>(deck.subList(0, numCards));
+    draw(numCards);
+    
+    ArrayList<Card> hand = new ArrayList<Card>(numCards);
+    for(int i = top - numCards; i < top; i++)
+      hand.add(Card.of(cards[i]));
+    
+    return hand;
+  }
+  
+  // NOTE: For simulation purposes; adds the sample to hand, does not modify deck.
+  public void sample(HandBits hand, int numCards)
+  {
+    draw(numCards);
+    
+    for(int i = top - numCards; i < top; i++)
+      hand.add(cards[i]);
   }
   
   /**
@@ -106,18 +158,23 @@ public class Deck
    */
   public ArrayList<Card> deal(int numCards)
   {
-    Collections.shuffle(deck);
-    
-    int toIndex = deck.size();
-    int fromIndex = toIndex - numCards;
-    
-    ArrayList<Card> hand = new ArrayList<Card>(deck.subList(fromIndex, toIndex));
-    cardsDealt.addAll(hand);
-    deck.removeAll(hand);
+    ArrayList<Card> hand = sample(numCards);
+    top -= numCards;
     
     return hand;
   }
   
+  /**
+   *Deals cards from deck equal to numCards into a primitive hand
+   *pre: 0 <= numCards <= getCurrentDeckSize()
+   *post: the dealt cards are added to hand
+   */
+  public void deal(HandBits hand, int numCards)
+  {
+    sample(hand, numCards);
+    top -= numCards;
+  }
+  
   /**
    *Deals a card from the Deck
    *pre: deck is non empty
@@ -125,22 +182,51 @@ public class Deck
    */ 
   public Card deal()
   {
-    Collections.shuffle(deck);
-    
-    if(!deck.isEmpty()) {
-      Card card = deck.remove(deck.size() - 1);
-      cardsDealt.add(card);
-      return card;
+    if(top > 0) {
+      draw(1);
+      return Card.of(cards[--top]);
     }
     
     return null;
   }
   
-  // NOTE: Restores the deck; avoids having to create a new deck.
+  /**
+   *Deals a given card from the Deck, e.g. to set up a known hand
+   *pre: none
+   *post: returns true if the card was in the deck and has been dealt
+   */
+  public boolean deal(Card card)
+  {
+    for(int i = 0; i < top; i++)
+    {
+      if(cards[i] == card.getIndex())
+      {
+        cards[i] = cards[top - 1];
+        cards[--top] = card.getIndex();
+        return true;
+      }
+    }
+    
+    return false;
+  }
+  
+  // NOTE: For simulation purposes; returns a copy of the cards left in the deck.
+  public ArrayList<Card> getCards()
+  {
+    ArrayList<Card> result = new ArrayList<Card>(top);
+    
+    for(int i = 0; i < top; i++)
+      result.add(Card.of(cards[i]));
+    
+    return result;
+  }
+  
+  // NOTE: Restores the deck; avoids having to create a new deck. The dealt
+  // cards are still in the array past top, so this only moves the pointer.
   public boolean restore()
   {
-    boolean result = deck.addAll(cardsDealt);
-    cardsDealt.clear();
+    boolean result = top < deckSize;
+    top = deckSize;
     return result;
   }
   
@@ -151,9 +237,76 @@ public class Deck
    */
   public int getCurrentDeckSize()
   {
-    return deck.size();
+    return top;
   }
   
+  /**
+   * Partial Fisher-Yates shuffle: moves numCards random cards of the deck to
+   * the end of the cards still in it, doing one swap per card.
+   * pre: 0 <= numCards <= top
+   * post: cards[top - numCards] to cards[top - 1] are a uniform random sample
+   */
+  private void draw(int numCards)
+  {
+    for(int i = top - 1; i >= top - numCards; i--)
+    {
+      int j = random.nextInt(i + 1);
+      int temp = cards[i];
+      cards[i] = cards[j];
+      cards[j] = temp;
+    }
+  }
+  
+  /**
+   * Writes the order of the cards and the state of the generator, so a long
+   * simulation can stop and continue the same stream later.
+   * pre: isSaveable()
+   * post: the state is written to out
+   */
+  public void writeState(DataOutput out) throws IOException
+  {
+    out.writeInt(deckSize);
+    out.writeInt(top);
+    for(int card : cards)
+      out.writeInt(card);
+
+    long[] state = ((SaveableSource)random).getState();
+    out.writeInt(state.length);
+    for(long word : state)
+      out.writeLong(word);
+  }
+
+  /**
+   * Reads a state written by writeState.
+   * pre: isSaveable(), the state was written by a deck of the same size and
+   *      generator class
+   * post: the deck continues where the saved one stopped
+   */
+  public void readState(DataInput in) throws IOException
+  {
+    if(in.readInt() != deckSize)
+      throw new IOException("Saved deck has a different size");
+
+    top = in.readInt();
+    for(int i = 0; i < deckSize; i++)
+      cards[i] = in.readInt();
+
+    long[] state = new long[in.readInt()];
+    for(int i = 0; i < state.length; i++)
+      state[i] = in.readLong();
+    ((SaveableSource)random).setState(state);
+  }
+
+  /**
+   * Tells whether the deck's state can be saved with writeState.
+   * pre: none
+   * post: returns true if the deck's generator is a SaveableSource
+   */
+  public boolean isSaveable()
+  {
+    return random instanceof SaveableSource;
+  }
+
   /**
    * Gets the number of cards the deck had when it was initialised.
    * pre: none
@@ -0,0 +1,118 @@
+import java.io.PrintStream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Ranks every one of the 2,598,960 five card hands across ForkJoin workers, giving the exact
+ * distribution of hand ranks. Hands are split by their lowest card, one task per card, and each
+ * task walks the combinations above it with plain nested loops.
+ */
+@SuppressWarnings("serial")
+public class DistributionTask extends RecursiveTask<int[]>
+{
+    private final int from;
+    private final int to;
+
+    /**
+     *Constructor method for the task ranking the hands whose lowest card is from to to - 1.
+     *pre: 0 <= from < to <= 48
+     *post: variables are initialised
+     */
+    public DistributionTask(int from, int to)
+    {
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     *Checks the evaluator's exact distribution against Poker.preDrawFrequency.
+     *pre: none
+     *post: prints every mismatch; exits with status 1 if there is one
+     */
+    public static void main(String[] args)
+    {
+        long start = System.nanoTime();
+        int[] counts = distribution();
+        long elapsed = System.nanoTime() - start;
+
+        int mismatches = printMismatches(counts);
+        System.out.format("%d mismatches in %.1f ms %n", mismatches, elapsed / 1e6);
+
+        if(mismatches > 0)
+            System.exit(1);
+    }
+
+    /**
+     *Ranks every five card hand.
+     *pre: none
+     *post: returns the number of hands of each rank
+     */
+    public static int[] distribution()
+    {
+        return distribution(ForkJoinPool.commonPool());
+    }
+
+    public static int[] distribution(ForkJoinPool pool)
+    {
+        return pool.invoke(new DistributionTask(0, Card.NUM_CARDS - 4));
+    }
+
+    /**
+     *Compares counts with Poker.preDrawFrequency.
+     *pre: counts has an entry per rank
+     *post: prints each rank that differs and returns how many do
+     */
+    public static int printMismatches(int[] counts)
+    {
+        return printMismatches(System.out, counts);
+    }
+
+    public static int printMismatches(PrintStream out, int[] counts)
+    {
+        int mismatches = 0;
+
+        for(int i = Poker.numRanks - 1; i >= 0; --i)
+            if(counts[i] != Poker.preDrawFrequency(i)) {
+                out.format("%17s: %d, expected %d %n", Poker.handName(i),
+                           counts[i], Poker.preDrawFrequency(i));
+                ++mismatches;
+            }
+
+        return mismatches;
+    }
+
+    @Override
+    protected int[] compute()
+    {
+        if(to - from == 1)
+            return rankAll(from);
+
+        int middle = (from + to) >>> 1;
+        DistributionTask left = new DistributionTask(from, middle);
+        DistributionTask right = new DistributionTask(middle, to);
+
+        left.fork();
+        int[] counts = right.compute();
+        int[] leftCounts = left.join();
+
+        for(int i = 0; i < counts.length; ++i)
+            counts[i] += leftCounts[i];
+
+        return counts;
+    }
+
+    // Ranks every hand whose lowest card is a.
+    private static int[] rankAll(int a)
+    {
+        int[] counts = new int[Poker.numRanks];
+        int n = Card.NUM_CARDS;
+
+        for(int b = a + 1; b < n - 3; ++b)
+            for(int c = b + 1; c < n - 2; ++c)
+                for(int d = c + 1; d < n - 1; ++d)
+                    for(int e = d + 1; e < n; ++e)
+                        counts[HandEvaluator.rank(a, b, c, d, e)] += 1;
+
+        return counts;
+    }
+}
@@ -0,0 +1,144 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Exact return of a paytable under optimal play. Every suit isomorphic class of deals is solved
+ * with ExactStrategy, the best hold is played, and the chance of each final rank is weighted by
+ * the number of deals in the class, so the results are those of all 2,598,960 deals and every
+ * draw. Classes are split in halves across ForkJoin workers down to blocks of a fixed size, and
+ * the halves are added in a fixed order, so the sums do not depend on the number of workers.
+ *
+ * Usage: java ExactRtpTask [paytable file|default] [bet|max]
+ */
+@SuppressWarnings("serial")
+public class ExactRtpTask extends RecursiveTask<double[]>
+{
+    public static final int blockSize = 512;
+
+    private final int[] payoutTable;
+    private final int from;
+    private final int to;
+
+    /**
+     *Constructor method for the task solving classes from to to - 1.
+     *pre: payoutTable has an entry per rank, 0 <= from < to <= CanonicalHand.numClasses()
+     *post: variables are initialised
+     */
+    public ExactRtpTask(int[] payoutTable, int from, int to)
+    {
+        this.payoutTable = payoutTable;
+        this.from = from;
+        this.to = to;
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        Paytable paytable = (args.length > 0 && !args[0].equals("default"))
+            ? Paytable.load(new File(args[0])) : Paytable.JACKS_OR_BETTER;
+        int bet = (args.length > 1 && !args[1].equals("max"))
+            ? Integer.parseInt(args[1]) : paytable.getMaxBet();
+        int[] payoutTable = paytable.getPayouts(bet);
+
+        long start = System.nanoTime();
+        double[] probabilities = finalRankProbabilities(payoutTable);
+        long elapsed = System.nanoTime() - start;
+
+        double mean = 0;
+        double meanSquare = 0;
+        for(int i = 0; i < Poker.numRanks; ++i) {
+            mean += probabilities[i] * payoutTable[i];
+            meanSquare += probabilities[i] * payoutTable[i] * payoutTable[i];
+        }
+        double variance = meanSquare - mean * mean;
+
+        System.out.println("Paytable: " + paytable + ", bet " + bet);
+        System.out.format("%nExact return to player: %.6f%% %n", 100 * mean);
+        System.out.format("Variance per coin: %.4f, standard deviation %.4f %n",
+                          variance, Math.sqrt(variance));
+        System.out.format("Solved %d classes of deals in %.1f s %n%n", CanonicalHand.numClasses(),
+                          elapsed / 1e9);
+
+        System.out.format("%17s  %-12s  %-12s  %s %n", "", "Probability", "1 in", "Return");
+        for(int i = Poker.numRanks - 1; i >= 0; --i)
+            System.out.format("%17s: %.10f  %-12.1f  %.6f %n", Poker.handName(i), probabilities[i],
+                              1 / probabilities[i], probabilities[i] * payoutTable[i]);
+    }
+
+    /**
+     *Plays the optimal hold of every deal.
+     *pre: payoutTable has an entry per rank
+     *post: returns the probability of finishing with each rank
+     */
+    public static double[] finalRankProbabilities(int[] payoutTable)
+    {
+        double[] weights = ForkJoinPool.commonPool().invoke(
+            new ExactRtpTask(payoutTable, 0, CanonicalHand.numClasses()));
+
+        for(int i = 0; i < weights.length; ++i)
+            weights[i] /= CanonicalHand.numHands;
+
+        return weights;
+    }
+
+    /**
+     *Gets the exact return of a paytable.
+     *pre: payoutTable has an entry per rank
+     *post: returns the expected payout per coin of optimal play
+     */
+    public static double returnToPlayer(int[] payoutTable)
+    {
+        double[] probabilities = finalRankProbabilities(payoutTable);
+        double mean = 0;
+
+        for(int i = 0; i < probabilities.length; ++i)
+            mean += probabilities[i] * payoutTable[i];
+
+        return mean;
+    }
+
+    @Override
+    protected double[] compute()
+    {
+        if(to - from <= blockSize)
+            return solve();
+
+        int middle = (from + to) >>> 1;
+        ExactRtpTask left = new ExactRtpTask(payoutTable, from, middle);
+        ExactRtpTask right = new ExactRtpTask(payoutTable, middle, to);
+
+        right.fork();
+        double[] result = left.compute();
+        double[] other = right.join();
+
+        for(int i = 0; i < result.length; ++i)
+            result[i] += other[i];
+
+        return result;
+    }
+
+    // Adds up the final rank chances of the best hold of each class, times the class size.
+    private double[] solve()
+    {
+        double[] weights = new double[Poker.numRanks];
+        int[] hand = new int[CanonicalHand.handSize];
+
+        for(int handClass = from; handClass < to; ++handClass) {
+            CanonicalHand.representative(handClass, hand);
+
+            int[][] counts = ExactStrategy.holdCounts(hand);
+            int[] best = counts[ExactStrategy.bestChoice(ExactStrategy.expectedPayouts(counts, payoutTable))];
+
+            long draws = 0;
+            for(int count : best)
+                draws += count;
+
+            double weight = (double)CanonicalHand.multiplicity(handClass) / draws;
+            for(int i = 0; i < weights.length; ++i)
+                weights[i] += best[i] * weight;
+        }
+
+        return weights;
+    }
+}
@@ -0,0 +1,318 @@
+import java.util.ArrayList;
+
+/**
+ * Exact expected payouts for the 32 ways of holding a five card hand. Instead of sampling the
+ * draw, every completion from the cards left in the deck is enumerated once, and each draw is
+ * counted toward every hold choice it completes.
+ *
+ * When the deck holds every card but the dealt ones, the counts come from a table instead:
+ * for every set S of at most 5 cards it stores how many five card hands of each rank contain S.
+ * The hands that keep hold H and avoid the discards D are counted by inclusion-exclusion, the
+ * sum over the subsets T of D of (-1)^|T| times the hands containing H and T, which takes 243
+ * lookups per deal instead of 178,365 evaluations.
+ */
+public class ExactStrategy
+{
+    public static final int numChoices = 32;
+
+    /**
+     *Counts the final hand ranks of every hold choice.
+     *pre: dealt contains 5 cards, remaining holds the cards left in the deck
+     *post: returns counts[i][rank], the number of draws that finish hold choice i with that rank.
+     *      Bit j of i is set when card j of dealt is held.
+     */
+    public static int[][] holdCounts(ArrayList<Card> dealt, ArrayList<Card> remaining)
+    {
+        if(dealt.size() == CanonicalHand.handSize
+           && dealt.size() + remaining.size() == Card.NUM_CARDS) {
+            int[] cards = new int[dealt.size()];
+
+            for(int i = 0; i < cards.length; ++i)
+                cards[i] = dealt.get(i).getIndex();
+
+            return holdCounts(cards);
+        }
+
+        return enumerateHoldCounts(dealt, remaining);
+    }
+
+    /**
+     *Counts the final hand ranks of every hold choice when the other 47 cards are left to draw.
+     *pre: dealt holds 5 distinct card indices
+     *post: returns counts[i][rank], the number of draws that finish hold choice i with that rank.
+     *      Bit j of i is set when dealt[j] is held.
+     */
+    public static int[][] holdCounts(int[] dealt)
+    {
+        int[][] counts = new int[numChoices][Poker.numRanks];
+        int[] subsets = subsetIndices(dealt);
+
+        for(int hold = 0; hold < numChoices; ++hold)
+            holdCounts(subsets, hold, counts[hold]);
+
+        return counts;
+    }
+
+    /**
+     *Gets the colex rank of the cards of every subset of a deal, for holdCounts and
+     *supersetCounts.
+     *pre: dealt holds 5 distinct card indices
+     *post: returns subsets[s], the colex rank among sets of its size of the cards dealt[j] whose
+     *      bit j is set in s
+     */
+    public static int[] subsetIndices(int[] dealt)
+    {
+        int[] subsets = new int[numChoices];
+        int[] order = sortedPositions(dealt);
+
+        for(int s = 0; s < numChoices; ++s) {
+            int size = 0;
+
+            for(int i = 0; i < order.length; ++i)
+                if(((s >> order[i]) & 1) == 1)
+                    subsets[s] += CanonicalHand.binomial(dealt[order[i]], ++size);
+        }
+
+        return subsets;
+    }
+
+    /**
+     *Counts the final hand ranks of one hold choice when the other 47 cards are left to draw.
+     *pre: subsets was returned by subsetIndices, counts has an entry per rank
+     *post: adds to counts[rank] the number of draws that finish hold with that rank
+     */
+    public static void holdCounts(int[] subsets, int hold, int[] counts)
+    {
+        int all = numChoices - 1;
+        int discards = all & ~hold;
+
+        // Every subset of the discards, down to the empty set
+        for(int removed = discards; ; removed = (removed - 1) & discards) {
+            int sign = ((Integer.bitCount(removed) & 1) == 0) ? 1 : -1;
+            supersetCounts(subsets, hold | removed, sign, counts);
+
+            if(removed == 0)
+                break;
+        }
+    }
+
+    /**
+     *Counts the five card hands of each rank that contain some of the dealt cards, whatever
+     *else they contain. These bound the counts of holding those cards from above.
+     *pre: subsets was returned by subsetIndices, counts has an entry per rank
+     *post: adds sign times the number of hands of each rank containing the cards of s
+     */
+    public static void supersetCounts(int[] subsets, int s, int sign, int[] counts)
+    {
+        if(s == numChoices - 1) {
+            counts[Supersets.ranks[subsets[s]]] += sign;
+            return;
+        }
+
+        int[] table = Supersets.counts[Integer.bitCount(s)];
+        int offset = subsets[s] * counts.length;
+
+        for(int r = 0; r < counts.length; ++r)
+            counts[r] += sign * table[offset + r];
+    }
+
+    // Enumerates every draw from remaining, for decks that are missing more than the dealt cards.
+    private static int[][] enumerateHoldCounts(ArrayList<Card> dealt, ArrayList<Card> remaining)
+    {
+        int handSize = dealt.size();
+        int numCards = remaining.size();
+        int[][] counts = new int[numChoices][Poker.numRanks];
+        int[][] holdsByDrawn = holdsByCardsDrawn(handSize);
+        int[] drawn = new int[handSize]; // indices into remaining of the cards drawn
+
+        Player player = new Player();
+        player.addCards(dealt);
+
+        for(int numDrawn = 0; numDrawn <= handSize && numDrawn <= numCards; ++numDrawn) {
+            int[] holds = holdsByDrawn[numDrawn];
+
+            for(int i = 0; i < numDrawn; ++i)
+                drawn[i] = i;
+
+            do {
+                for(int hold : holds) {
+                    int next = 0;
+
+                    for(int j = 0; j < handSize; ++j)
+                        if(((hold >> j) & 1) == 1)
+                            player.setCard(next++, dealt.get(j));
+
+                    for(int j = 0; j < numDrawn; ++j)
+                        player.setCard(next++, remaining.get(drawn[j]));
+
+                    counts[hold][player.getHandRank()] += 1;
+                }
+            } while(nextCombination(drawn, numDrawn, numCards));
+        }
+
+        return counts;
+    }
+
+    /**
+     *Converts rank counts into the expected payout of each hold choice.
+     *pre: counts was returned by holdCounts, payoutTable has an entry per rank
+     *post: returns the exact expected payout of each hold choice
+     */
+    public static float[] expectedPayouts(int[][] counts, int[] payoutTable)
+    {
+        float[] expectedPayouts = new float[counts.length];
+
+        for(int i = 0; i < counts.length; ++i) {
+            long total = 0;
+            long payout = 0;
+
+            for(int k = 0; k < counts[i].length; ++k) {
+                total += counts[i][k];
+                payout += (long)counts[i][k] * payoutTable[k];
+            }
+
+            expectedPayouts[i] = (total > 0) ? (float)((double)payout / total) : 0;
+        }
+
+        return expectedPayouts;
+    }
+
+    /**
+     *Finds the hold choice with the highest expected payout.
+     *pre: expectedPayouts is non empty
+     *post: returns the index of the first best choice
+     */
+    public static int bestChoice(float[] expectedPayouts)
+    {
+        int bestChoice = 0;
+
+        for(int i = 0; i < expectedPayouts.length; ++i)
+            if(expectedPayouts[i] > expectedPayouts[bestChoice])
+                bestChoice = i;
+
+        return bestChoice;
+    }
+
+    /**
+     *Gets the cards kept by a hold choice.
+     *pre: 0 <= hold < numChoices
+     *post: returns the cards of dealt whose bit is set in hold, in dealt order
+     */
+    public static ArrayList<Card> cardsHeld(ArrayList<Card> dealt, int hold)
+    {
+        ArrayList<Card> hand = new ArrayList<Card>(dealt.size());
+
+        for(int j = 0; j < dealt.size(); ++j)
+            if(((hold >> j) & 1) == 1)
+                hand.add(dealt.get(j));
+
+        return hand;
+    }
+
+    // Gets the positions of dealt in increasing order of card.
+    private static int[] sortedPositions(int[] dealt)
+    {
+        int[] order = new int[dealt.length];
+
+        for(int i = 0; i < order.length; ++i) {
+            int j = i;
+
+            for(; j > 0 && dealt[order[j-1]] > dealt[i]; --j)
+                order[j] = order[j-1];
+
+            order[j] = i;
+        }
+
+        return order;
+    }
+
+    // Groups the hold choices by how many cards they draw.
+    private static int[][] holdsByCardsDrawn(int handSize)
+    {
+        int[][] holds = new int[handSize + 1][];
+        int[] sizes = new int[handSize + 1];
+
+        for(int hold = 0; hold < (1 << handSize); ++hold)
+            sizes[handSize - Integer.bitCount(hold)] += 1;
+
+        for(int i = 0; i <= handSize; ++i) {
+            holds[i] = new int[sizes[i]];
+            sizes[i] = 0;
+        }
+
+        for(int hold = 0; hold < (1 << handSize); ++hold) {
+            int numDrawn = handSize - Integer.bitCount(hold);
+            holds[numDrawn][sizes[numDrawn]++] = hold;
+        }
+
+        return holds;
+    }
+
+    /**
+     * Rank counts of the five card hands containing each set of cards, built on first use by
+     * ranking every hand once and adding it to its 31 proper subsets.
+     */
+    private static class Supersets
+    {
+        // counts[k][colex rank of S * numRanks + rank] for every set S of k < 5 cards
+        static final int[][] counts = new int[CanonicalHand.handSize][];
+
+        // rank of every hand by colex rank
+        static final byte[] ranks = new byte[CanonicalHand.numHands];
+
+        static
+        {
+            int handSize = CanonicalHand.handSize;
+            int numRanks = Poker.numRanks;
+
+            for(int k = 0; k < handSize; ++k)
+                counts[k] = new int[CanonicalHand.binomial(Card.NUM_CARDS, k) * numRanks];
+
+            int[] cards = new int[handSize];
+            int[] subset = new int[numChoices];
+
+            for(int i = 0; i < handSize; ++i)
+                cards[i] = i;
+
+            do {
+                int rank = HandEvaluator.rank(cards);
+
+                // cards is sorted, so the colex rank of a subset extends that of the subset
+                // without its highest card
+                for(int s = 1; s < numChoices; ++s) {
+                    int high = 31 - Integer.numberOfLeadingZeros(s);
+                    int rest = s & ~(1 << high);
+                    subset[s] = subset[rest] + CanonicalHand.binomial(cards[high], Integer.bitCount(s));
+                }
+
+                ranks[subset[numChoices - 1]] = (byte)rank;
+
+                for(int s = 0; s < numChoices - 1; ++s)
+                    counts[Integer.bitCount(s)][subset[s] * numRanks + rank] += 1;
+            } while(nextCombination(cards, handSize, Card.NUM_CARDS));
+        }
+    }
+
+    /**
+     *Steps to the next k-combination of 0..n-1 in lexicographic order.
+     *pre: combination holds k strictly increasing indices below n
+     *post: returns false once the last combination has been passed
+     */
+    public static boolean nextCombination(int[] combination, int k, int n)
+    {
+        int i = k - 1;
+
+        while(i >= 0 && combination[i] == n - k + i)
+            --i;
+
+        if(i < 0)
+            return false;
+
+        combination[i] += 1;
+
+        for(int j = i + 1; j < k; ++j)
+            combination[j] = combination[j - 1] + 1;
+
+        return true;
+    }
+}
@@ -0,0 +1,212 @@
+import java.util.ArrayList;
+
+/**
+ * Primitive hand of cards: a 52 bit mask with bit i set when the card with index i (see
+ * Card.getIndex) is held, plus the card indices in the order they were added. Lets simulations
+ * deal, hold and rank hands without boxing Cards or allocating.
+ *
+ * Since a card index is 4 * (rank - 2) + suit, the four bits of a rank sit next to each other
+ * and bit 4 * r + s of the mask is rank r + 2 of suit s.
+ */
+public class HandBits
+{
+    public static final long suitBits = 0x1111111111111L; // the 13 bits of clubs
+
+    private long mask;
+    private final int[] cards;
+    private int size;
+
+    /**
+     *Constructor method for an empty hand.
+     *pre: capacity > 0
+     *post: hand can hold capacity cards
+     */
+    public HandBits(int capacity)
+    {
+        this.mask = 0;
+        this.cards = new int[capacity];
+        this.size = 0;
+    }
+
+    public HandBits()
+    {
+        this(Poker.handSize);
+    }
+
+    /**
+     *Converts a list of Cards.
+     *pre: cards are distinct
+     *post: returns a hand holding cards in the same order
+     */
+    public static HandBits of(ArrayList<Card> cards)
+    {
+        HandBits hand = new HandBits(Math.max(cards.size(), Poker.handSize));
+
+        for(Card card : cards)
+            hand.add(card.getIndex());
+
+        return hand;
+    }
+
+    /**
+     *Converts the hand back to Cards.
+     *pre: none
+     *post: returns the cards in the order they were added
+     */
+    public ArrayList<Card> toCards()
+    {
+        ArrayList<Card> result = new ArrayList<Card>(size);
+
+        for(int i = 0; i < size; ++i)
+            result.add(toCard(cards[i]));
+
+        return result;
+    }
+
+    /**
+     *Gets the Card with an index.
+     *pre: 0 <= index < 52
+     *post: returns the card
+     */
+    public static Card toCard(int index)
+    {
+        return Card.of(index);
+    }
+
+    public boolean add(int card)
+    {
+        long bit = 1L << card;
+
+        if((mask & bit) != 0 || size == cards.length)
+            return false;
+
+        mask |= bit;
+        cards[size++] = card;
+        return true;
+    }
+
+    public boolean add(Card card)
+    {
+        return add(card.getIndex());
+    }
+
+    /**
+     *Removes a card, keeping the order of the others.
+     *pre: none
+     *post: returns true if card was in the hand
+     */
+    public boolean remove(int card)
+    {
+        if(!contains(card))
+            return false;
+
+        int i = 0;
+        while(cards[i] != card)
+            ++i;
+
+        for(; i < size - 1; ++i)
+            cards[i] = cards[i+1];
+
+        mask &= ~(1L << card);
+        --size;
+        return true;
+    }
+
+    /**
+     *Drops the cards added last, e.g. to undo a draw.
+     *pre: 0 <= newSize <= size()
+     *post: hand holds its first newSize cards
+     */
+    public void truncate(int newSize)
+    {
+        while(size > newSize)
+            mask &= ~(1L << cards[--size]);
+    }
+
+    public void clear()
+    {
+        mask = 0;
+        size = 0;
+    }
+
+    public boolean contains(int card)
+    {
+        return (mask & (1L << card)) != 0;
+    }
+
+    public int get(int i)
+    {
+        return cards[i];
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public long getMask()
+    {
+        return mask;
+    }
+
+    /**
+     *Gives the card array, e.g. to rank it with HandEvaluator.
+     *pre: none
+     *post: returns the backing array; only its first size() entries are cards
+     */
+    public int[] getCards()
+    {
+        return cards;
+    }
+
+    /**
+     *Counts the cards of each rank.
+     *pre: mask is a hand mask
+     *post: returns the count of rank r + 2 in bits 4r to 4r + 3
+     */
+    public static long rankHistogram(long mask)
+    {
+        long pairs = (mask & 0x5555555555555L) + ((mask >>> 1) & 0x5555555555555L);
+        return (pairs & 0x3333333333333L) + ((pairs >>> 2) & 0x3333333333333L);
+    }
+
+    /**
+     *Gets the ranks held in a suit.
+     *pre: 0 <= suit < 4
+     *post: returns a 13 bit mask with bit r set when rank r + 2 of suit is in the hand
+     */
+    public static int suitMask(long mask, int suit)
+    {
+        long bits = (mask >>> suit) & suitBits;
+        int result = 0;
+
+        for(int r = 0; bits != 0; ++r, bits >>>= 4)
+            result |= (int)(bits & 1) << r;
+
+        return result;
+    }
+
+    /**
+     *Gets the ranks held in any suit.
+     *pre: mask is a hand mask
+     *post: returns a 13 bit mask with bit r set when a card of rank r + 2 is in the hand
+     */
+    public static int rankMask(long mask)
+    {
+        return suitMask(mask | (mask >>> 1) | (mask >>> 2) | (mask >>> 3), 0);
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder result = new StringBuilder("{");
+
+        for(int i = 0; i < size; ++i) {
+            if(i > 0)
+                result.append(", ");
+            result.append((cards[i] >> 2) + 2).append(Card.SUITS[cards[i] & 3]);
+        }
+
+        return result.append("}").toString();
+    }
+}
@@ -0,0 +1,98 @@
+import java.util.ArrayList;
+
+/**
+ * Allocation free hand evaluator working on card indices (see Card.getIndex), returning the
+ * same 0-9 ranks as Poker.handName.
+ *
+ * The ranks of a hand are ORed into a 13 bit mask. Hands with five different ranks are looked
+ * up in a table indexed by that mask and a flush bit. For the others, the number of different
+ * ranks and the XOR of the rank bits (the ranks held an odd number of times) tell the pairs,
+ * trips and quads apart without sorting.
+ */
+public class HandEvaluator
+{
+    public static final int jackBit = 1 << (11 - 2);
+
+    // rank of a hand with five different ranks, indexed by rank mask | flush << 13
+    private static final byte[] fiveRanks = new byte[1 << 14];
+
+    static
+    {
+        for(int mask = 0; mask < (1 << 13); ++mask) {
+            if(Integer.bitCount(mask) != 5)
+                continue;
+
+            boolean straight = mask == 0x100f; // five high straight, the ace plays low
+            for(int low = 0; low <= 8; ++low)
+                straight |= mask == (0x1f << low);
+
+            boolean royal = mask == (0x1f << 8);
+
+            fiveRanks[mask] = (byte)(straight ? 4 : 0);
+            fiveRanks[mask | (1 << 13)] = (byte)(royal ? 9 : straight ? 8 : 5);
+        }
+    }
+
+    /**
+     *Ranks a five card hand.
+     *pre: cards holds at least 5 distinct card indices
+     *post: returns the rank of the first five cards
+     */
+    public static int rank(int[] cards)
+    {
+        return rank(cards[0], cards[1], cards[2], cards[3], cards[4]);
+    }
+
+    /**
+     *Ranks a five card hand.
+     *pre: the cards are distinct card indices
+     *post: returns the rank of the hand, 0-9
+     */
+    public static int rank(int c0, int c1, int c2, int c3, int c4)
+    {
+        int b0 = 1 << (c0 >> 2), b1 = 1 << (c1 >> 2), b2 = 1 << (c2 >> 2),
+            b3 = 1 << (c3 >> 2), b4 = 1 << (c4 >> 2);
+
+        int mask = b0 | b1 | b2 | b3 | b4;
+        int odd = b0 ^ b1 ^ b2 ^ b3 ^ b4;
+
+        switch(Integer.bitCount(mask))
+        {
+            case 5:
+                int flush = (((c0 ^ c1) | (c0 ^ c2) | (c0 ^ c3) | (c0 ^ c4)) & 3) == 0 ? 1 : 0;
+                return fiveRanks[mask | (flush << 13)];
+
+            case 4: // one pair, the only rank not held an odd number of times
+                return ((mask ^ odd) >= jackBit) ? 1 : 0;
+
+            case 3: // three of a kind has every rank odd, two pair only the kicker
+                return (odd == mask) ? 3 : 2;
+
+            default: // four of a kind holds its odd rank once, a full house three times
+                int oddCards = (b0 == odd ? 1 : 0) + (b1 == odd ? 1 : 0) + (b2 == odd ? 1 : 0)
+                               + (b3 == odd ? 1 : 0) + (b4 == odd ? 1 : 0);
+                return (oddCards == 1) ? 7 : 6;
+        }
+    }
+
+    /**
+     *Ranks a hand of Cards.
+     *pre: hand contains 5 cards
+     *post: returns the rank of the hand, 0-9
+     */
+    public static int rank(ArrayList<Card> hand)
+    {
+        return rank(hand.get(0).getIndex(), hand.get(1).getIndex(), hand.get(2).getIndex(),
+                    hand.get(3).getIndex(), hand.get(4).getIndex());
+    }
+
+    /**
+     *Ranks a primitive hand.
+     *pre: hand holds 5 cards
+     *post: returns the rank of the hand, 0-9
+     */
+    public static int rank(HandBits hand)
+    {
+        return rank(hand.getCards());
+    }
+}
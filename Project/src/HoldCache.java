@@ -0,0 +1,226 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size bounded cache of exact hold decisions, for when the whole StrategyTable is not at hand.
+ * Deals are keyed by their suit isomorphic class, so every suit permutation of a hand shares
+ * one entry, and each entry keeps the best hold and the expected payout of all 32 holds over the
+ * canonical hand's cards in increasing order, mapped back onto the caller's cards on the way out.
+ *
+ * The entries are spread over segments by class, each a LinkedHashMap in access order that
+ * drops its least recently used entry once full. Threads only lock the segment they use, and a
+ * miss is solved outside the lock, so two threads missing the same class may both solve it.
+ */
+public class HoldCache implements HoldStrategy
+{
+    public static final int defaultCapacity = 1 << 16;
+    public static final int numSegments = 16;
+
+    private final int[] payoutTable;
+    private final Segment[] segments;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private static class Entry
+    {
+        private final int bestHold;
+        private final float[] expectedPayouts;
+
+        private Entry(int bestHold, float[] expectedPayouts)
+        {
+            this.bestHold = bestHold;
+            this.expectedPayouts = expectedPayouts;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private class Segment extends LinkedHashMap<Integer, Entry>
+    {
+        private final int capacity;
+
+        private Segment(int capacity)
+        {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, HoldCache.Entry> eldest)
+        {
+            if(size() <= capacity)
+                return false;
+
+            evictions.incrementAndGet();
+            return true;
+        }
+    }
+
+    /**
+     *Constructor method for an empty cache.
+     *pre: payoutTable has an entry per rank, capacity >= numSegments
+     *post: the cache holds at most capacity deals
+     */
+    public HoldCache(int[] payoutTable, int capacity)
+    {
+        this.payoutTable = payoutTable.clone();
+        this.segments = new Segment[numSegments];
+
+        for(int i = 0; i < numSegments; ++i)
+            segments[i] = new Segment(capacity / numSegments);
+    }
+
+    public HoldCache(int[] payoutTable)
+    {
+        this(payoutTable, defaultCapacity);
+    }
+
+    /**
+     *Gets the optimal hold of a dealt hand when the other 47 cards are left to draw.
+     *pre: cards holds 5 distinct card indices
+     *post: returns the best hold, bit j set when cards[j] is held
+     */
+    public int bestHold(int[] cards)
+    {
+        int[] canonical = new int[CanonicalHand.handSize];
+        Entry entry = lookup(cards, canonical);
+
+        return CanonicalHand.fromCanonicalHold(entry.bestHold, canonical);
+    }
+
+    public int bestHold(ArrayList<Card> hand)
+    {
+        return bestHold(indices(hand));
+    }
+
+    /**
+     *Gets the expected payout of every hold when the other 47 cards are left to draw.
+     *pre: hand contains 5 cards
+     *post: returns the expected payouts indexed by hold over the cards of hand
+     */
+    public float[] expectedPayouts(ArrayList<Card> hand)
+    {
+        int[] canonical = new int[CanonicalHand.handSize];
+        Entry entry = lookup(indices(hand), canonical);
+        float[] expectedPayouts = new float[ExactStrategy.numChoices];
+
+        for(int hold = 0; hold < expectedPayouts.length; ++hold)
+            expectedPayouts[hold] =
+                entry.expectedPayouts[CanonicalHand.toCanonicalHold(hold, canonical)];
+
+        return expectedPayouts;
+    }
+
+    /**
+     *Chooses a hold, from the cache when deck holds every card but the dealt ones and by
+     *enumerating the draws of deck otherwise.
+     *pre: dealt holds 5 cards, deck holds the cards left to draw
+     *post: returns the best hold, bit j set when card j of dealt is held
+     */
+    @Override
+    public int chooseHold(HandBits dealt, Deck deck)
+    {
+        if(dealt.size() + deck.getCurrentDeckSize() == Card.NUM_CARDS)
+            return bestHold(dealt.getCards());
+
+        int[][] counts = ExactStrategy.holdCounts(dealt.toCards(), deck.getCards());
+        return ExactStrategy.bestChoice(ExactStrategy.expectedPayouts(counts, payoutTable));
+    }
+
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    public long getEvictions()
+    {
+        return evictions.get();
+    }
+
+    /**
+     *Counts the cached deals.
+     *pre: none
+     *post: returns the number of classes held across all segments
+     */
+    public int size()
+    {
+        int size = 0;
+
+        for(Segment segment : segments)
+            synchronized(segment) {
+                size += segment.size();
+            }
+
+        return size;
+    }
+
+    @Override
+    public String toString()
+    {
+        long lookups = getHits() + getMisses();
+
+        return String.format("%d hits, %d misses (%.1f%% hit rate), %d evictions, %d entries",
+                             getHits(), getMisses(),
+                             (lookups > 0) ? 100.0 * getHits() / lookups : 0.0,
+                             getEvictions(), size());
+    }
+
+    // Gets the entry of the class of cards, solving it on a miss.
+    private Entry lookup(int[] cards, int[] canonical)
+    {
+        int handClass = CanonicalHand.classOf(cards, canonical);
+        Segment segment = segments[handClass % numSegments];
+        Entry entry;
+
+        synchronized(segment) {
+            entry = segment.get(handClass);
+        }
+
+        if(entry != null) {
+            hits.incrementAndGet();
+            return entry;
+        }
+
+        misses.incrementAndGet();
+        entry = solve(handClass);
+
+        synchronized(segment) {
+            Entry previous = segment.get(handClass);
+            if(previous != null)
+                return previous;
+
+            segment.put(handClass, entry);
+        }
+
+        return entry;
+    }
+
+    private Entry solve(int handClass)
+    {
+        int[] hand = new int[CanonicalHand.handSize];
+        CanonicalHand.representative(handClass, hand);
+
+        float[] expectedPayouts = ExactStrategy.expectedPayouts(ExactStrategy.holdCounts(hand),
+                                                                payoutTable);
+
+        return new Entry(ExactStrategy.bestChoice(expectedPayouts), expectedPayouts);
+    }
+
+    private static int[] indices(ArrayList<Card> hand)
+    {
+        int[] cards = new int[CanonicalHand.handSize];
+
+        for(int i = 0; i < cards.length; ++i)
+            cards[i] = hand.get(i).getIndex();
+
+        return cards;
+    }
+}
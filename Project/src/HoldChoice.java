@@ -0,0 +1,93 @@
+import java.util.ArrayList;
+
+/**
+ * A hold decision as the strategies return it: the cards held, the hold as a bit set over the
+ * dealt cards, its expected payout and, when it was solved exactly, the chance of finishing
+ * with each rank.
+ */
+public class HoldChoice
+{
+    private final ArrayList<Card> hand;
+    private final int hold;
+    private final float value;
+    private final double[] probabilities;
+
+    /**
+     *Constructor method for a choice whose outcome distribution is not known.
+     *pre: hand holds the cards of dealt whose bit is set in hold
+     *post: variables are initialised
+     */
+    public HoldChoice(ArrayList<Card> hand, int hold, float value)
+    {
+        this(hand, hold, value, null);
+    }
+
+    /**
+     *Constructor method for a choice with its outcome distribution.
+     *pre: hand holds the cards of dealt whose bit is set in hold, probabilities has an entry
+     *     per rank or is null
+     *post: variables are initialised
+     */
+    public HoldChoice(ArrayList<Card> hand, int hold, float value, double[] probabilities)
+    {
+        this.hand = hand;
+        this.hold = hold;
+        this.value = value;
+        this.probabilities = probabilities;
+    }
+
+    /**
+     *Gets the cards held.
+     *pre: none
+     *post: returns the held cards in dealt order
+     */
+    public ArrayList<Card> getHand()
+    {
+        return hand;
+    }
+
+    public int getHold()
+    {
+        return hold;
+    }
+
+    /**
+     *Gets the expected payout of the hold.
+     *pre: none
+     *post: returns the expected payout per coin, including the returned bet
+     */
+    public float getValue()
+    {
+        return value;
+    }
+
+    /**
+     *Tells whether the outcome distribution is known.
+     *pre: none
+     *post: returns true if the choice was solved exactly
+     */
+    public boolean hasProbabilities()
+    {
+        return probabilities != null;
+    }
+
+    /**
+     *Gets the chance of finishing with each rank.
+     *pre: hasProbabilities()
+     *post: returns a copy of the probabilities, indexed by rank
+     */
+    public double[] getProbabilities()
+    {
+        return probabilities.clone();
+    }
+
+    /**
+     *Gets the variance of the payout of the hold.
+     *pre: hasProbabilities(), payoutTable has an entry per rank
+     *post: returns the variance per coin
+     */
+    public double getVariance(int[] payoutTable)
+    {
+        return Utility.variance(probabilities, payoutTable);
+    }
+}
@@ -0,0 +1,133 @@
+import java.util.ArrayList;
+
+/**
+ * The exact outcome distribution of all 32 holds of a deal, from one pass of ExactStrategy's
+ * counts. Any number of paytables and utilities can then be applied without solving again.
+ *
+ * Usage: java HoldOutcomes card card card card card [utility]
+ *        e.g. java HoldOutcomes 14s 13s 12s 11s 10d meanVariance:0.05
+ */
+public class HoldOutcomes
+{
+    private final ArrayList<Card> dealt;
+    private final int[][] counts;
+    private final long[] draws;
+
+    /**
+     *Constructor method solving a deal.
+     *pre: dealt contains 5 cards, remaining holds the cards left in the deck
+     *post: the distributions of every hold are known
+     */
+    public HoldOutcomes(ArrayList<Card> dealt, ArrayList<Card> remaining)
+    {
+        this.dealt = new ArrayList<Card>(dealt);
+        this.counts = ExactStrategy.holdCounts(dealt, remaining);
+        this.draws = new long[counts.length];
+
+        for(int hold = 0; hold < counts.length; ++hold)
+            for(int count : counts[hold])
+                draws[hold] += count;
+    }
+
+    public static void main(String[] args)
+    {
+        ArrayList<Card> dealt = new ArrayList<Card>();
+        ArrayList<Card> remaining = new ArrayList<Card>();
+
+        for(int i = 0; i < CanonicalHand.handSize; ++i) {
+            String card = args[i];
+            dealt.add(Card.of(Integer.parseInt(card.substring(0, card.length() - 1)),
+                              card.charAt(card.length() - 1)));
+        }
+
+        for(int i = 0; i < Card.NUM_CARDS; ++i)
+            if(!dealt.contains(Card.of(i)))
+                remaining.add(Card.of(i));
+
+        Utility utility = Utility.create((args.length > 5) ? args[5] : "ev");
+        Paytable paytable = Paytable.JACKS_OR_BETTER;
+        int[] payoutTable = paytable.getPayouts(paytable.getMaxBet());
+        HoldOutcomes outcomes = new HoldOutcomes(dealt, remaining);
+        int best = outcomes.best(Utility.expectedPayout(), payoutTable);
+        int chosen = outcomes.best(utility, payoutTable);
+
+        System.out.format("%n%-24s %9s %9s %9s %9s %n", "Hold", "Mean", "Std. dev.", "P(win)",
+                          "Utility");
+
+        for(int hold = 0; hold < ExactStrategy.numChoices; ++hold) {
+            double[] probabilities = outcomes.probabilities(hold);
+            double win = 0;
+
+            for(int i = 0; i < probabilities.length; ++i)
+                if(payoutTable[i] > 1)
+                    win += probabilities[i];
+
+            System.out.format("%-24s %9.4f %9.4f %9.4f %9.4f %s%n",
+                              ExactStrategy.cardsHeld(dealt, hold),
+                              Utility.mean(probabilities, payoutTable),
+                              Math.sqrt(Utility.variance(probabilities, payoutTable)), win,
+                              utility.value(probabilities, payoutTable),
+                              (hold == chosen) ? "<- " + utility : (hold == best) ? "<- best payout" : "");
+        }
+    }
+
+    /**
+     *Gets the chance of finishing with each rank.
+     *pre: 0 <= hold < 32
+     *post: returns the probabilities of holding the cards whose bit is set, indexed by rank
+     */
+    public double[] probabilities(int hold)
+    {
+        double[] probabilities = new double[counts[hold].length];
+
+        for(int i = 0; i < probabilities.length; ++i)
+            probabilities[i] = (double)counts[hold][i] / draws[hold];
+
+        return probabilities;
+    }
+
+    /**
+     *Gets the number of draws finishing with each rank.
+     *pre: 0 <= hold < 32
+     *post: returns a copy of the counts of the hold, indexed by rank
+     */
+    public int[] counts(int hold)
+    {
+        return counts[hold].clone();
+    }
+
+    /**
+     *Finds the hold a utility likes best.
+     *pre: payoutTable has an entry per rank
+     *post: returns the hold with the highest utility, the lowest hold among ties
+     */
+    public int best(Utility utility, int[] payoutTable)
+    {
+        int best = 0;
+        double bestValue = Double.NEGATIVE_INFINITY;
+
+        for(int hold = 0; hold < counts.length; ++hold) {
+            double value = utility.value(probabilities(hold), payoutTable);
+
+            if(value > bestValue) {
+                best = hold;
+                bestValue = value;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     *Describes a hold.
+     *pre: 0 <= hold < 32, payoutTable has an entry per rank
+     *post: returns the choice with its expected payout and distribution
+     */
+    public HoldChoice choice(int hold, int[] payoutTable)
+    {
+        double[] probabilities = probabilities(hold);
+
+        return new HoldChoice(ExactStrategy.cardsHeld(dealt, hold), hold,
+                              (float)Utility.mean(probabilities, payoutTable), probabilities);
+    }
+}
@@ -0,0 +1,13 @@
+/**
+ * A way of choosing which dealt cards to hold, so simulations can be run with the optimal
+ * strategy or with any other.
+ */
+public interface HoldStrategy
+{
+    /**
+     *Chooses the cards to hold.
+     *pre: dealt holds 5 cards, deck holds the cards left after the deal
+     *post: returns the hold, bit j set when card j of dealt is held; deck is unchanged
+     */
+    int chooseHold(HandBits dealt, Deck deck);
+}
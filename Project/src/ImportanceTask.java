@@ -0,0 +1,361 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Estimates the chance of every hand rank by importance sampling, so the rare ranks are measured
+ * well without billions of hands. Hands are drawn from a mixture of a uniform deal and deals
+ * built to be rare: five cards of one suit, a straight flush, four of a kind. Each hand counts
+ * with the weight p(x) / q(x), its chance under a uniform deal over its chance under the
+ * mixture, which keeps the estimates unbiased. Since the uniform deal is part of the mixture, no
+ * weight is above 1 / mixture[0].
+ *
+ * Shards work as in ObservedTask, each with its own deck, so seeded runs replay on any machine,
+ * and save their state to a Checkpoint in the same way.
+ *
+ * Usage: java ImportanceTask [samples] [seed]
+ */
+@SuppressWarnings("serial")
+public class ImportanceTask extends RecursiveTask<double[][]>
+{
+    public static final int uniform = 0;
+    public static final int oneSuit = 1;
+    public static final int straightFlush = 2;
+    public static final int fourOfAKind = 3;
+
+    // NOTE: The chance of each way of drawing a hand, in the order above.
+    private static final double[] mixture = { 0.55, 0.15, 0.15, 0.15 };
+
+    // Number of hands each component can draw
+    public static final double oneSuitHands = 4 * 1287;   // 4 suits times 13 choose 5
+    public static final double straightFlushHands = 40;   // 4 suits times 10 straights
+    public static final double fourOfAKindHands = 624;    // 13 ranks times 48 kickers
+
+    public static final String phase = "importance";
+
+    private final Deck[] decks;
+    private final int[] iterations;
+    private final int from;
+    private final int to;
+    private final Checkpoint checkpoint;
+    private final Metrics metrics;
+
+    /**
+     *Constructor method for the task sampling shards from to to - 1.
+     *pre: decks and iterations have an entry per shard, decks are not shared
+     *post: variables are initialised
+     */
+    public ImportanceTask(Deck[] decks, int[] iterations, int from, int to)
+    {
+        this(decks, iterations, from, to, null, null);
+    }
+
+    /**
+     *Constructor method for the task sampling shards from to to - 1, saving their state and
+     *counting the hands.
+     *pre: decks and iterations have an entry per shard, decks are not shared and their
+     *     generators can be saved, checkpoint is null or was made for the same run, metrics
+     *     may be null
+     *post: variables are initialised
+     */
+    public ImportanceTask(Deck[] decks, int[] iterations, int from, int to,
+                          Checkpoint checkpoint, Metrics metrics)
+    {
+        this.decks = decks;
+        this.iterations = iterations;
+        this.from = from;
+        this.to = to;
+        this.checkpoint = checkpoint;
+        this.metrics = metrics;
+    }
+
+    public static void main(String[] args)
+    {
+        int numIter = (args.length > 0) ? Integer.parseInt(args[0]) : 3500000;
+        long seed = (args.length > 1) ? Long.parseLong(args[1]) : System.nanoTime();
+
+        System.out.println("\nSeed: " + seed);
+
+        long start = System.nanoTime();
+        double[][] sums = ForkJoinPool.commonPool().invoke(
+            create(new Deck(new Xoroshiro128PlusPlus(seed)), numIter,
+                   SimulationConfig.defaultNumShards));
+        long elapsed = System.nanoTime() - start;
+
+        printEstimates(sums, numIter);
+        System.out.format("%n%d weighted samples in %.1f s %n", numIter, elapsed / 1e9);
+    }
+
+    /**
+     *Creates the task for a whole run.
+     *pre: numShards > 0
+     *post: returns a task sampling numIter hands over numShards decks split off deck
+     */
+    public static ImportanceTask create(Deck deck, int numIter, int numShards)
+    {
+        return create(deck, numIter, numShards, null, null);
+    }
+
+    /**
+     *Creates the task for a whole run, saving its progress and counting the hands.
+     *pre: numShards > 0
+     *post: returns a task sampling numIter hands over numShards decks split off deck, continuing
+     *      from the shard states in checkpoint if it is not null; throws
+     *      IllegalArgumentException if there is a checkpoint and deck cannot be saved
+     */
+    public static ImportanceTask create(Deck deck, int numIter, int numShards,
+                                        Checkpoint checkpoint, Metrics metrics)
+    {
+        if(checkpoint != null && !deck.isSaveable())
+            throw new IllegalArgumentException("A checkpointed run needs a SaveableSource");
+
+        Deck[] decks = new Deck[numShards];
+        int[] iterations = new int[numShards];
+
+        for(int i = 0; i < numShards; ++i) {
+            decks[i] = deck.split();
+            iterations[i] = numIter / numShards + ((i < numIter % numShards) ? 1 : 0);
+        }
+
+        return new ImportanceTask(decks, iterations, 0, numShards, checkpoint, metrics);
+    }
+
+    /**
+     *Prints the estimate of each rank next to its exact chance.
+     *pre: sums was returned by a task that sampled numIter hands
+     *post: prints the estimates, standard errors, deviations in standard errors, and how many
+     *      unweighted samples would give the same standard error
+     */
+    public static void printEstimates(double[][] sums, long numIter)
+    {
+        printEstimates(System.out, sums, numIter);
+    }
+
+    public static void printEstimates(PrintStream out, double[][] sums, long numIter)
+    {
+        out.println("\nImportance sampling:");
+        out.format("%n%29s  %-12s  %-12s  %-8s  %s %n", "Estimate", "Std. error",
+                   "Exact", "Z", "Plain samples");
+
+        for(int i = Poker.numRanks - 1; i >= 0; --i) {
+            double estimate = sums[0][i] / numIter;
+            double error = Math.sqrt(Math.max(sums[1][i] / numIter - estimate * estimate, 0)
+                                     / numIter);
+            double exact = (double)Poker.preDrawFrequency(i) / Poker.numHands;
+
+            out.format("%17s: %.4e  %.4e  %.4e  %8.3f  %.3g %n", Poker.handName(i),
+                       estimate, error, exact, (estimate - exact) / error,
+                       exact * (1 - exact) / (error * error));
+        }
+    }
+
+    @Override
+    protected double[][] compute()
+    {
+        if(to - from == 1 && checkpoint != null)
+            return sample(from);
+        if(to - from == 1)
+            return sample(decks[from], iterations[from], metrics);
+
+        int middle = (from + to) >>> 1;
+        ImportanceTask left = new ImportanceTask(decks, iterations, from, middle, checkpoint,
+                                            metrics);
+        ImportanceTask right = new ImportanceTask(decks, iterations, middle, to, checkpoint,
+                                             metrics);
+
+        left.fork();
+        double[][] sums = right.compute();
+        double[][] leftSums = left.join();
+
+        for(int k = 0; k < sums.length; ++k)
+            for(int i = 0; i < sums[k].length; ++i)
+                sums[k][i] += leftSums[k][i];
+
+        return sums;
+    }
+
+    /**
+     *Samples weighted hands from one deck.
+     *pre: numIter >= 0, metrics may be null
+     *post: returns the sums of the weights and of the squared weights of the hands of each rank
+     */
+    public static double[][] sample(Deck deck, int numIter, Metrics metrics)
+    {
+        double[][] sums = new double[2][Poker.numRanks];
+
+        sample(deck, deck.splitRandom(), numIter, sums, metrics);
+        return sums;
+    }
+
+    /**
+     *Samples more weighted hands from one deck.
+     *pre: numIter >= 0, random is not shared, sums is 2 by the number of ranks, metrics may
+     *     be null
+     *post: the weights and squared weights of numIter more hands are added to sums
+     */
+    public static void sample(Deck deck, RandomSource random, int numIter, double[][] sums,
+                              Metrics metrics)
+    {
+        HandBits hand = new HandBits(Poker.handSize);
+        int[] ranks = new int[13];
+
+        double[] weights = new double[Poker.numRanks];
+        for(int r = 0; r < weights.length; ++r)
+            weights[r] = weight(r);
+
+        double[] cumulative = new double[mixture.length];
+        for(int k = 0; k < mixture.length; ++k)
+            cumulative[k] = mixture[k] + ((k > 0) ? cumulative[k-1] : 0);
+
+        for(int i = 0; i < numIter; ++i) {
+            double u = random.nextDouble() * cumulative[mixture.length - 1];
+            hand.clear();
+
+            if(u < cumulative[uniform])
+                deck.sample(hand, Poker.handSize);
+            else if(u < cumulative[oneSuit])
+                drawOneSuit(hand, ranks, random);
+            else if(u < cumulative[straightFlush])
+                drawStraightFlush(hand, random);
+            else
+                drawFourOfAKind(hand, random);
+
+            int rank = HandEvaluator.rank(hand);
+            double weight = weights[rank];
+
+            sums[0][rank] += weight;
+            sums[1][rank] += weight * weight;
+
+            if(((i + 1) & (Metrics.batchSize - 1)) == 0)
+                if(metrics != null)
+                    metrics.addSampledHands(Metrics.batchSize);
+        }
+
+        if(metrics != null)
+            metrics.addSampledHands(numIter & (Metrics.batchSize - 1));
+    }
+
+    // Samples a shard in chunks, saving its state after each
+    private double[][] sample(int shard)
+    {
+        Deck deck = decks[shard];
+        double[][] sums = new double[2][Poker.numRanks];
+        int done = 0;
+
+        try {
+            DataInputStream saved = checkpoint.get(phase + "/" + shard);
+            RandomSource random;
+
+            if(saved != null) {
+                done = saved.readInt();
+                for(double[] sum : sums)
+                    for(int i = 0; i < sum.length; ++i)
+                        sum[i] = saved.readDouble();
+                // Split first so the restored deck is not moved on by splitting
+                random = deck.splitRandom();
+                deck.readState(saved);
+
+                long[] words = new long[saved.readInt()];
+                for(int i = 0; i < words.length; ++i)
+                    words[i] = saved.readLong();
+                ((SaveableSource)random).setState(words);
+            } else {
+                random = deck.splitRandom();
+            }
+
+            while(done < iterations[shard]) {
+                int numIter = Math.min(checkpoint.getChunkSize(), iterations[shard] - done);
+                sample(deck, random, numIter, sums, metrics);
+                done += numIter;
+
+                ByteArrayOutputStream state = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(state);
+                out.writeInt(done);
+                for(double[] sum : sums)
+                    for(double x : sum)
+                        out.writeDouble(x);
+                deck.writeState(out);
+                long[] words = ((SaveableSource)random).getState();
+                out.writeInt(words.length);
+                for(long word : words)
+                    out.writeLong(word);
+                checkpoint.put(phase + "/" + shard, state);
+            }
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return sums;
+    }
+
+    /**
+     *Gets the likelihood ratio of a hand, which only depends on its rank.
+     *pre: 0 <= rank < 10
+     *post: returns the chance of the hand when dealt over its chance under the mixture
+     */
+    public static double weight(int rank)
+    {
+        double total = 0;
+        for(double share : mixture)
+            total += share;
+
+        double ratio = mixture[uniform];
+
+        if(rank == 5 || rank == 8 || rank == 9) // every card of one suit
+            ratio += mixture[oneSuit] * Poker.numHands / oneSuitHands;
+        if(rank == 8 || rank == 9)
+            ratio += mixture[straightFlush] * Poker.numHands / straightFlushHands;
+        if(rank == 7)
+            ratio += mixture[fourOfAKind] * Poker.numHands / fourOfAKindHands;
+
+        return total / ratio;
+    }
+
+    // Five different ranks of one suit
+    private static void drawOneSuit(HandBits hand, int[] ranks, RandomSource random)
+    {
+        int suit = random.nextInt(4);
+
+        for(int r = 0; r < ranks.length; ++r)
+            ranks[r] = r;
+
+        for(int i = 0; i < Poker.handSize; ++i) {
+            int last = ranks.length - 1 - i;
+            int j = random.nextInt(last + 1);
+            int temp = ranks[j];
+            ranks[j] = ranks[last];
+            ranks[last] = temp;
+
+            hand.add((ranks[last] << 2) | suit);
+        }
+    }
+
+    // One of the 10 straights, the last being five high with the ace low, in one suit
+    private static void drawStraightFlush(HandBits hand, RandomSource random)
+    {
+        int suit = random.nextInt(4);
+        int low = random.nextInt(10);
+
+        for(int i = 0; i < Poker.handSize; ++i) {
+            int rank = (low == 9) ? (i + 12) % 13 : low + i;
+            hand.add((rank << 2) | suit);
+        }
+    }
+
+    // Four cards of one rank and any of the 48 other cards
+    private static void drawFourOfAKind(HandBits hand, RandomSource random)
+    {
+        int rank = random.nextInt(13);
+        int kicker = random.nextInt(Card.NUM_CARDS - 4);
+
+        for(int suit = 0; suit < 4; ++suit)
+            hand.add((rank << 2) | suit);
+
+        hand.add((kicker < 4 * rank) ? kicker : kicker + 4);
+    }
+}
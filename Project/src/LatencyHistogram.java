@@ -0,0 +1,96 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of non-negative values such as latencies in nanoseconds, in the style of an HDR
+ * histogram: values below 32 have a bucket each, and every larger power of two is split into 16
+ * buckets, so a value is known to within 1/16 of itself over the whole long range in under a
+ * thousand buckets. Recording is an index computation and one atomic increment, without locks,
+ * so any number of threads can record while another reads.
+ */
+public class LatencyHistogram
+{
+    public static final int subBucketBits = 4;
+
+    private static final int subBuckets = 1 << subBucketBits;
+    private static final int numBuckets = (64 - subBucketBits) * subBuckets;
+
+    private final AtomicLongArray counts = new AtomicLongArray(numBuckets);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     *Records a value.
+     *pre: value >= 0
+     *post: the bucket of value has one more count
+     */
+    public void record(long value)
+    {
+        counts.incrementAndGet(bucket(value));
+
+        long seen;
+        while(value > (seen = max.get()) && !max.compareAndSet(seen, value)) { }
+    }
+
+    /**
+     *Gets the number of values recorded.
+     *pre: none
+     *post: returns the total of the buckets
+     */
+    public long getCount()
+    {
+        long count = 0;
+
+        for(int i = 0; i < numBuckets; ++i)
+            count += counts.get(i);
+
+        return count;
+    }
+
+    public long getMax()
+    {
+        return max.get();
+    }
+
+    /**
+     *Gets a quantile of the recorded values.
+     *pre: 0 <= p <= 1
+     *post: returns the highest value of the bucket holding the quantile, 0 if nothing was recorded
+     */
+    public long getQuantile(double p)
+    {
+        long[] snapshot = new long[numBuckets];
+        long total = 0;
+
+        for(int i = 0; i < numBuckets; ++i)
+            total += snapshot[i] = counts.get(i);
+
+        long rank = Math.max(1, (long)Math.ceil(p * total));
+        long seen = 0;
+
+        for(int i = 0; i < numBuckets; ++i)
+            if((seen += snapshot[i]) >= rank)
+                return Math.min(highestValue(i), getMax());
+
+        return 0;
+    }
+
+    // Values below 2 * subBuckets index directly; above, the top subBucketBits + 1 bits do,
+    // offset by the number of bits shifted out.
+    private static int bucket(long value)
+    {
+        int shift = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - subBucketBits - 1);
+
+        return (shift << subBucketBits) + (int)(value >>> shift);
+    }
+
+    private static long highestValue(int bucket)
+    {
+        if(bucket < 2 * subBuckets)
+            return bucket;
+
+        int shift = (bucket >>> subBucketBits) - 1;
+        long lowest = (long)(subBuckets + (bucket & (subBuckets - 1))) << shift;
+
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,265 @@
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters of a running simulation: hands played, hand evaluations, hold decisions with the
+ * samples they took and a histogram of their latency, plus the collector and allocation totals
+ * of the JVM. Recording is a LongAdder add or a LatencyHistogram record, a few nanoseconds
+ * without locks, so the counters stay on in long runs; loops that evaluate many hands add their
+ * count in batches rather than per hand. The counters can be registered as an MBean and printed
+ * periodically as one progress line.
+ */
+public class Metrics implements MetricsMBean
+{
+    // NOTE: Loops add hands and evaluations in batches of this many; a power of two.
+    public static final int batchSize = 1 << 16;
+
+    private final String name;
+    private final long start;
+
+    private final LongAdder hands = new LongAdder();
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder decisions = new LongAdder();
+    private final LongAdder samples = new LongAdder();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    private ScheduledExecutorService progressLog;
+
+    /**
+     *Constructor method for the counters of a simulation.
+     *pre: name is a valid JMX key value
+     *post: every counter is 0, the rates count from now
+     */
+    public Metrics(String name)
+    {
+        this.name = name;
+        this.start = System.nanoTime();
+    }
+
+    public void addHands(long numHands)
+    {
+        hands.add(numHands);
+    }
+
+    public void addEvaluations(long numEvaluations)
+    {
+        evaluations.add(numEvaluations);
+    }
+
+    /**
+     *Counts hands that were dealt and evaluated once each.
+     *pre: numHands >= 0
+     *post: hands and evaluations are both numHands higher
+     */
+    public void addSampledHands(long numHands)
+    {
+        hands.add(numHands);
+        evaluations.add(numHands);
+    }
+
+    /**
+     *Records a hold decision.
+     *pre: latency in nanoseconds >= 0, numSamples >= 0 is the draws sampled to make it
+     *post: the decision is counted and its latency recorded
+     */
+    public void recordDecision(long latency, long numSamples)
+    {
+        decisions.increment();
+        samples.add(numSamples);
+        latencies.record(latency);
+    }
+
+    /**
+     *Registers the counters with the platform MBean server.
+     *pre: no other Metrics of the same name is registered
+     *post: the counters show as VideoPoker:type=Metrics,name=name
+     */
+    public void register() throws JMException
+    {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName());
+    }
+
+    public void unregister() throws JMException
+    {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName());
+    }
+
+    /**
+     *Starts printing the progress line periodically on a daemon thread.
+     *pre: seconds > 0, the log is not running
+     *post: getProgress() is printed to out every seconds until stopProgressLog
+     */
+    public void startProgressLog(final PrintStream out, long seconds)
+    {
+        progressLog = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, name + " progress");
+                thread.setDaemon(true);
+                return thread;
+            }
+
+        });
+
+        progressLog.scheduleAtFixedRate(new Runnable() {
+
+            @Override
+            public void run() {
+                out.println(getProgress());
+            }
+
+        }, seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    public void stopProgressLog()
+    {
+        if(progressLog != null)
+            progressLog.shutdownNow();
+
+        progressLog = null;
+    }
+
+    @Override
+    public long getHands()
+    {
+        return hands.sum();
+    }
+
+    @Override
+    public double getHandsPerSecond()
+    {
+        return getHands() / seconds();
+    }
+
+    @Override
+    public long getEvaluations()
+    {
+        return evaluations.sum();
+    }
+
+    @Override
+    public long getDecisions()
+    {
+        return decisions.sum();
+    }
+
+    @Override
+    public double getSamplesPerDecision()
+    {
+        long numDecisions = getDecisions();
+
+        return (numDecisions > 0) ? (double)samples.sum() / numDecisions : 0;
+    }
+
+    @Override
+    public double getDecisionLatencyMedianMillis()
+    {
+        return latencies.getQuantile(0.5) / 1e6;
+    }
+
+    @Override
+    public double getDecisionLatency99Millis()
+    {
+        return latencies.getQuantile(0.99) / 1e6;
+    }
+
+    @Override
+    public double getDecisionLatencyMaxMillis()
+    {
+        return latencies.getMax() / 1e6;
+    }
+
+    public LatencyHistogram getLatencies()
+    {
+        return latencies;
+    }
+
+    @Override
+    public long getGcCount()
+    {
+        long count = 0;
+
+        for(GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+            count += Math.max(0, collector.getCollectionCount());
+
+        return count;
+    }
+
+    @Override
+    public long getGcTimeMillis()
+    {
+        long time = 0;
+
+        for(GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+            time += Math.max(0, collector.getCollectionTime());
+
+        return time;
+    }
+
+    /**
+     *Gets the bytes allocated by the live threads of the JVM.
+     *pre: none
+     *post: returns the total, or -1 where the JVM does not measure allocation
+     */
+    @Override
+    public long getAllocatedBytes()
+    {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        if(!(threads instanceof com.sun.management.ThreadMXBean))
+            return -1;
+
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean)threads;
+        if(!allocations.isThreadAllocatedMemoryEnabled())
+            return -1;
+
+        long total = 0;
+        for(long bytes : allocations.getThreadAllocatedBytes(threads.getAllThreadIds()))
+            total += Math.max(0, bytes);
+
+        return total;
+    }
+
+    /**
+     *Describes the counters on one line.
+     *pre: none
+     *post: returns the progress line
+     */
+    @Override
+    public String getProgress()
+    {
+        return String.format("[%s] %8.1f s  %,d hands (%,.0f/s)  %,d evaluations  "
+                             + "%,d decisions (%,.0f samples, p50 %.2f ms, p99 %.2f ms)  "
+                             + "gc %d (%d ms)  %,d MB allocated",
+                             name, seconds(), getHands(), getHandsPerSecond(), getEvaluations(),
+                             getDecisions(), getSamplesPerDecision(),
+                             getDecisionLatencyMedianMillis(), getDecisionLatency99Millis(),
+                             getGcCount(), getGcTimeMillis(), getAllocatedBytes() >> 20);
+    }
+
+    @Override
+    public String toString()
+    {
+        return getProgress();
+    }
+
+    private double seconds()
+    {
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    private ObjectName objectName() throws JMException
+    {
+        return new ObjectName("VideoPoker:type=Metrics,name=" + name);
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * The attributes of a simulation's Metrics as JMX shows them, e.g. in jconsole under
+ * VideoPoker/Metrics.
+ */
+public interface MetricsMBean
+{
+    long getHands();
+
+    double getHandsPerSecond();
+
+    long getEvaluations();
+
+    long getDecisions();
+
+    double getSamplesPerDecision();
+
+    double getDecisionLatencyMedianMillis();
+
+    double getDecisionLatency99Millis();
+
+    double getDecisionLatencyMaxMillis();
+
+    long getGcCount();
+
+    long getGcTimeMillis();
+
+    long getAllocatedBytes();
+
+    String getProgress();
+}
@@ -0,0 +1,189 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Samples hands across ForkJoin workers. The iterations are split into a fixed number of shards,
+ * each with its own deck (and so its own random stream) and its own count array; the arrays are
+ * merged as the tasks join. Since the shards do not depend on the number of threads, a seeded run
+ * gives the same counts on any machine.
+ *
+ * With a Checkpoint, each shard samples in chunks and saves its deck, counts and iterations done
+ * after every chunk, and starts from its saved state if it has one, so a resumed run gives the
+ * same counts as one that was never stopped.
+ */
+@SuppressWarnings("serial")
+public class ObservedTask extends RecursiveTask<int[]>
+{
+    public static final String phase = "observed";
+
+    private final Deck[] decks;
+    private final int[] iterations;
+    private final int from;
+    private final int to;
+    private final Checkpoint checkpoint;
+    private final Metrics metrics;
+
+    /**
+     *Constructor method for the task sampling shards from to to - 1.
+     *pre: decks and iterations have an entry per shard, decks are not shared
+     *post: variables are initialised
+     */
+    public ObservedTask(Deck[] decks, int[] iterations, int from, int to)
+    {
+        this(decks, iterations, from, to, null, null);
+    }
+
+    /**
+     *Constructor method for the task sampling shards from to to - 1, saving their state and
+     *counting the hands.
+     *pre: decks and iterations have an entry per shard, decks are not shared and their
+     *     generators can be saved, checkpoint is null or was made for the same run, metrics
+     *     may be null
+     *post: variables are initialised
+     */
+    public ObservedTask(Deck[] decks, int[] iterations, int from, int to,
+                        Checkpoint checkpoint, Metrics metrics)
+    {
+        this.decks = decks;
+        this.iterations = iterations;
+        this.from = from;
+        this.to = to;
+        this.checkpoint = checkpoint;
+        this.metrics = metrics;
+    }
+
+    /**
+     *Creates the task for a whole run.
+     *pre: numShards > 0
+     *post: returns a task sampling numIter hands over numShards decks split off deck
+     */
+    public static ObservedTask create(Deck deck, int numIter, int numShards)
+    {
+        return create(deck, numIter, numShards, null, null);
+    }
+
+    /**
+     *Creates the task for a whole run, saving its progress and counting the hands.
+     *pre: numShards > 0
+     *post: returns a task sampling numIter hands over numShards decks split off deck, continuing
+     *      from the shard states in checkpoint if it is not null; throws
+     *      IllegalArgumentException if there is a checkpoint and deck cannot be saved
+     */
+    public static ObservedTask create(Deck deck, int numIter, int numShards,
+                                      Checkpoint checkpoint, Metrics metrics)
+    {
+        if(checkpoint != null && !deck.isSaveable())
+            throw new IllegalArgumentException("A checkpointed run needs a SaveableSource");
+
+        Deck[] decks = new Deck[numShards];
+        int[] iterations = new int[numShards];
+
+        for(int i = 0; i < numShards; ++i) {
+            decks[i] = deck.split();
+            iterations[i] = numIter / numShards + ((i < numIter % numShards) ? 1 : 0);
+        }
+
+        return new ObservedTask(decks, iterations, 0, numShards, checkpoint, metrics);
+    }
+
+    @Override
+    protected int[] compute()
+    {
+        if(to - from == 1 && checkpoint != null)
+            return observed(from);
+        if(to - from == 1)
+            return observed(decks[from], iterations[from], metrics);
+
+        int middle = (from + to) >>> 1;
+        ObservedTask left = new ObservedTask(decks, iterations, from, middle, checkpoint, metrics);
+        ObservedTask right = new ObservedTask(decks, iterations, middle, to, checkpoint, metrics);
+
+        left.fork();
+        int[] counts = right.compute();
+        int[] leftCounts = left.join();
+
+        for(int i = 0; i < counts.length; ++i)
+            counts[i] += leftCounts[i];
+
+        return counts;
+    }
+
+    /**
+     *Samples hands from one deck.
+     *pre: numIter >= 0
+     *post: returns the number of sampled hands of each rank
+     */
+    public static int[] observed(Deck deck, int numIter)
+    {
+        return observed(deck, numIter, null);
+    }
+
+    /**
+     *Samples hands from one deck, counting them in metrics.
+     *pre: numIter >= 0, metrics may be null
+     *post: returns the number of sampled hands of each rank
+     */
+    public static int[] observed(Deck deck, int numIter, Metrics metrics)
+    {
+        int[] counts = new int[Poker.numRanks];
+        HandBits hand = new HandBits(Poker.handSize);
+
+        for(int i = 0; i < numIter; ++i) {
+            hand.clear();
+            deck.sample(hand, Poker.handSize);
+            counts[HandEvaluator.rank(hand)] += 1;
+
+            if(((i + 1) & (Metrics.batchSize - 1)) == 0)
+                if(metrics != null)
+                    metrics.addSampledHands(Metrics.batchSize);
+        }
+
+        if(metrics != null)
+            metrics.addSampledHands(numIter & (Metrics.batchSize - 1));
+
+        return counts;
+    }
+
+    // Samples a shard in chunks, saving its state after each
+    private int[] observed(int shard)
+    {
+        Deck deck = decks[shard];
+        int[] counts = new int[Poker.numRanks];
+        int done = 0;
+
+        try {
+            DataInputStream saved = checkpoint.get(phase + "/" + shard);
+            if(saved != null) {
+                done = saved.readInt();
+                for(int i = 0; i < counts.length; ++i)
+                    counts[i] = saved.readInt();
+                deck.readState(saved);
+            }
+
+            while(done < iterations[shard]) {
+                int numIter = Math.min(checkpoint.getChunkSize(), iterations[shard] - done);
+                int[] chunk = observed(deck, numIter, metrics);
+
+                for(int i = 0; i < counts.length; ++i)
+                    counts[i] += chunk[i];
+                done += numIter;
+
+                ByteArrayOutputStream state = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(state);
+                out.writeInt(done);
+                for(int count : counts)
+                    out.writeInt(count);
+                deck.writeState(out);
+                checkpoint.put(phase + "/" + shard, state);
+            }
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return counts;
+    }
+}
@@ -0,0 +1,233 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Paytable independent solution of every deal: for each suit isomorphic class and each of the
+ * 32 holds, the number of draws that finish the hold with each rank. The expected payout of a
+ * hold under any paytable is then the dot product of its counts with the payouts divided by the
+ * number of draws, so pricing a new paytable is a pass over the table instead of a solve.
+ *
+ * File layout: a header (magic, version, number of ranks, number of holds, number of classes)
+ * followed by the counts as ints, class by class, hold by hold, rank by rank. Holds are over the
+ * canonical hand's cards in increasing order, as in StrategyTable. The file is memory-mapped.
+ *
+ * Usage: java OutcomeTable build [output file]
+ *        java OutcomeTable price [table file] [bet|max] [paytable file|default]...
+ */
+public class OutcomeTable
+{
+    public static final int magic = 0x56504f43; // "VPOC"
+    public static final int version = 1;
+    public static final int headerSize = 4 * 5;
+    public static final String defaultFile = "outcomes.bin";
+
+    private final IntBuffer counts;
+    private final int numRanks;
+    private final int recordSize; // ints per class
+
+    private OutcomeTable(IntBuffer counts, int numRanks)
+    {
+        this.counts = counts;
+        this.numRanks = numRanks;
+        this.recordSize = ExactStrategy.numChoices * numRanks;
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        String mode = (args.length > 0) ? args[0] : "price";
+        File file = new File((args.length > 1) ? args[1] : defaultFile);
+
+        if(mode.equals("build")) {
+            long start = System.currentTimeMillis();
+            build(file);
+
+            System.out.format("Wrote %d classes to %s in %.1f s %n", CanonicalHand.numClasses(),
+                              file, (System.currentTimeMillis() - start) / 1000.0);
+            return;
+        }
+
+        OutcomeTable table = open(file);
+        int numPaytables = Math.max(args.length - 3, 1);
+
+        for(int i = 0; i < numPaytables; ++i) {
+            String name = (args.length > 3 + i) ? args[3 + i] : "default";
+            Paytable paytable = name.equals("default") ? Paytable.JACKS_OR_BETTER
+                                                       : Paytable.load(new File(name));
+            int bet = (args.length > 2 && !args[2].equals("max"))
+                ? Integer.parseInt(args[2]) : paytable.getMaxBet();
+
+            long start = System.nanoTime();
+            double rtp = table.returnToPlayer(paytable.getPayouts(bet)); // payouts are per coin
+
+            System.out.format("%s at bet %d: return to player %.6f%% (%d ms) %n", name, bet,
+                              100 * rtp, (System.nanoTime() - start) / 1000000);
+        }
+    }
+
+    /**
+     *Solves every class of deals and writes the counts.
+     *pre: none
+     *post: file holds the outcome table
+     */
+    public static void build(File file) throws IOException
+    {
+        int numClasses = CanonicalHand.numClasses();
+        int numRanks = Poker.numRanks;
+        long size = headerSize + 4L * numClasses * ExactStrategy.numChoices * numRanks;
+
+        RandomAccessFile out = new RandomAccessFile(file, "rw");
+        try {
+            out.setLength(0);
+            out.setLength(size);
+
+            FileChannel channel = out.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+            buffer.putInt(magic).putInt(version).putInt(numRanks)
+                  .putInt(ExactStrategy.numChoices).putInt(numClasses);
+
+            IntBuffer counts = buffer.asIntBuffer();
+            int[] hand = new int[CanonicalHand.handSize];
+
+            for(int handClass = 0; handClass < numClasses; ++handClass) {
+                CanonicalHand.representative(handClass, hand);
+
+                for(int[] holdCounts : ExactStrategy.holdCounts(hand))
+                    counts.put(holdCounts);
+            }
+
+            buffer.force();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     *Memory-maps a table.
+     *pre: file was written by build
+     *post: returns the table, or throws IOException if file is not an outcome table
+     */
+    public static OutcomeTable open(File file) throws IOException
+    {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = in.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if(buffer.getInt(0) != magic || buffer.getInt(4) != version)
+                throw new IOException(file + " is not an outcome table");
+
+            int numRanks = buffer.getInt(8);
+            int numChoices = buffer.getInt(12);
+            int numClasses = buffer.getInt(16);
+
+            if(numRanks != Poker.numRanks || numChoices != ExactStrategy.numChoices
+               || numClasses != CanonicalHand.numClasses()
+               || buffer.capacity() != headerSize + 4L * numClasses * numChoices * numRanks)
+                throw new IOException(file + " is truncated");
+
+            buffer.position(headerSize);
+            return new OutcomeTable(buffer.slice().asIntBuffer(), numRanks);
+        } finally {
+            in.close(); // the mapping stays valid after the channel is closed
+        }
+    }
+
+    /**
+     *Gets the rank counts of a hold.
+     *pre: 0 <= handClass < CanonicalHand.numClasses(), hold is over the canonical hand
+     *post: returns counts[rank], the number of draws finishing the hold with that rank
+     */
+    public int[] holdCounts(int handClass, int hold)
+    {
+        int[] result = new int[numRanks];
+        int offset = handClass * recordSize + hold * numRanks;
+
+        for(int r = 0; r < numRanks; ++r)
+            result[r] = counts.get(offset + r);
+
+        return result;
+    }
+
+    /**
+     *Prices every hold of every class under a paytable.
+     *pre: payoutTable has an entry per rank, bestHolds and bestPayouts have an entry per class
+     *     or are null, expectedPayouts has an entry per class or is null
+     *post: fills in the best hold, its expected payout and the expected payouts of all holds of
+     *      each class, and returns the expected payout of the whole game over all deals
+     */
+    public double price(int[] payoutTable, int[] bestHolds, float[] bestPayouts,
+                        float[][] expectedPayouts)
+    {
+        int numClasses = CanonicalHand.numClasses();
+        int numChoices = ExactStrategy.numChoices;
+        double[] draws = new double[numChoices]; // number of draws of each hold
+
+        for(int hold = 0; hold < numChoices; ++hold)
+            draws[hold] = CanonicalHand.binomial(Card.NUM_CARDS - CanonicalHand.handSize,
+                                                 CanonicalHand.handSize - Integer.bitCount(hold));
+
+        double total = 0;
+        int offset = 0;
+
+        for(int handClass = 0; handClass < numClasses; ++handClass) {
+            int bestHold = 0;
+            double bestPayout = -1;
+
+            for(int hold = 0; hold < numChoices; ++hold, offset += numRanks) {
+                long payout = 0;
+
+                for(int r = 0; r < numRanks; ++r)
+                    payout += (long)counts.get(offset + r) * payoutTable[r];
+
+                double expected = payout / draws[hold];
+
+                if(expectedPayouts != null)
+                    expectedPayouts[handClass][hold] = (float)expected;
+
+                if(expected > bestPayout) {
+                    bestPayout = expected;
+                    bestHold = hold;
+                }
+            }
+
+            if(bestHolds != null)
+                bestHolds[handClass] = bestHold;
+            if(bestPayouts != null)
+                bestPayouts[handClass] = (float)bestPayout;
+
+            total += CanonicalHand.multiplicity(handClass) * bestPayout;
+        }
+
+        return total / CanonicalHand.numHands;
+    }
+
+    /**
+     *Gets the expected payout of optimal play under a paytable.
+     *pre: payoutTable has an entry per rank
+     *post: returns the expected payout per hand over all deals
+     */
+    public double returnToPlayer(int[] payoutTable)
+    {
+        return price(payoutTable, null, null, null);
+    }
+
+    /**
+     *Writes the strategy table of a paytable without solving any hand.
+     *pre: payoutTable has an entry per rank
+     *post: file holds the table StrategyTable.build would write for payoutTable
+     */
+    public void writeStrategyTable(int[] payoutTable, File file) throws IOException
+    {
+        int numClasses = CanonicalHand.numClasses();
+        int[] bestHolds = new int[numClasses];
+        float[][] expectedPayouts = new float[numClasses][ExactStrategy.numChoices];
+
+        price(payoutTable, bestHolds, null, expectedPayouts);
+        StrategyTable.write(payoutTable, bestHolds, expectedPayouts, file);
+    }
+}
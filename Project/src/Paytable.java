@@ -0,0 +1,149 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * The payouts of a video poker machine: coins paid per coin bet for each hand rank, plus the
+ * bonus royal flush payout some machines only pay at the maximum bet. Paytables are immutable
+ * and compare by value.
+ *
+ * A paytable file is a properties file with one key per rank (see keys), maxBet and
+ * royalFlushMaxBet, the per coin royal flush payout at the maximum bet.
+ */
+public final class Paytable
+{
+    private static final String[] keys = { "nothing", "jacksOrBetter", "twoPair",
+                                           "threeOfAKind", "straight", "flush", "fullHouse",
+                                           "fourOfAKind", "straightFlush", "royalFlush" };
+
+    // The 9/6 Jacks or Better machine of the game: 250 for a royal, 800 per coin at max bet
+    public static final Paytable JACKS_OR_BETTER =
+        new Paytable(new int[] { 0, 1, 2, 3, 4, 6, 9, 25, 50, 250 }, 5, 800);
+
+    private static final int ROYAL_FLUSH = 9;
+
+    private final int[] payouts;
+    private final int maxBet;
+    private final int royalFlushMaxBet;
+
+    /**
+     *Constructor method for the Paytable class.
+     *pre: payouts has an entry per rank, maxBet > 0
+     *post: variables are initialised with a copy of payouts
+     */
+    public Paytable(int[] payouts, int maxBet, int royalFlushMaxBet)
+    {
+        this.payouts = payouts.clone();
+        this.maxBet = maxBet;
+        this.royalFlushMaxBet = royalFlushMaxBet;
+    }
+
+    /**
+     *Loads a paytable file.
+     *pre: none
+     *post: returns the paytable; throws IOException if it cannot be read or a key is missing
+     */
+    public static Paytable load(File file) throws IOException
+    {
+        InputStream in = new FileInputStream(file);
+        try {
+            return load(in, file.toString());
+        } finally {
+            in.close();
+        }
+    }
+
+    private static Paytable load(InputStream in, String name) throws IOException
+    {
+        Properties properties = new Properties();
+        properties.load(in);
+
+        int[] payouts = new int[keys.length];
+        for(int i = 0; i < keys.length; ++i)
+            payouts[i] = intProperty(properties, keys[i], name);
+
+        int maxBet = intProperty(properties, "maxBet", name);
+        int royalFlushMaxBet = properties.containsKey("royalFlushMaxBet")
+            ? intProperty(properties, "royalFlushMaxBet", name) : payouts[ROYAL_FLUSH];
+
+        return new Paytable(payouts, maxBet, royalFlushMaxBet);
+    }
+
+    private static int intProperty(Properties properties, String key, String name)
+        throws IOException
+    {
+        String value = properties.getProperty(key);
+
+        if(value == null)
+            throw new IOException(name + ": missing " + key);
+
+        try {
+            return Integer.parseInt(value.trim());
+        } catch(NumberFormatException e) {
+            throw new IOException(name + ": " + key + " is not a number: " + value);
+        }
+    }
+
+    /**
+     *Gets the total payout of a hand.
+     *pre: 0 <= rank < 10, 1 <= bet <= getMaxBet()
+     *post: returns the coins paid for the hand, including the returned bet
+     */
+    public int payout(int rank, int bet)
+    {
+        return payoutPerCoin(rank, bet) * bet;
+    }
+
+    /**
+     *Gets the payout per coin bet.
+     *pre: 0 <= rank < 10, 1 <= bet <= getMaxBet()
+     *post: returns the coins paid per coin bet
+     */
+    public int payoutPerCoin(int rank, int bet)
+    {
+        return (rank == ROYAL_FLUSH && bet == maxBet) ? royalFlushMaxBet : payouts[rank];
+    }
+
+    /**
+     *Gets the per coin payouts at a bet, the table the strategy depends on.
+     *pre: 1 <= bet <= getMaxBet()
+     *post: returns a new array with an entry per rank
+     */
+    public int[] getPayouts(int bet)
+    {
+        int[] result = payouts.clone();
+        result[ROYAL_FLUSH] = payoutPerCoin(ROYAL_FLUSH, bet);
+        return result;
+    }
+
+    public int getMaxBet()
+    {
+        return maxBet;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if(!(obj instanceof Paytable))
+            return false;
+
+        Paytable other = (Paytable)obj;
+        return Arrays.equals(payouts, other.payouts) && maxBet == other.maxBet
+            && royalFlushMaxBet == other.royalFlushMaxBet;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * (31 * Arrays.hashCode(payouts) + maxBet) + royalFlushMaxBet;
+    }
+
+    @Override
+    public String toString()
+    {
+        return Arrays.toString(payouts) + ", " + royalFlushMaxBet + " per coin at " + maxBet;
+    }
+}
@@ -1,5 +1,4 @@
 import java.util.ArrayList;
-import javax.swing.ImageIcon;
 
 /**
  *class representing a player in a game of video poker
@@ -83,6 +82,14 @@ public class Player
     }
 
     public int getHandRank()
+    {
+        this.rank = HandEvaluator.rank(hand);
+        return rank;
+    }
+
+    // NOTE: Ranks with the original sorting evaluator; kept so HandEvaluator
+    // can be checked against it.
+    int getSortedHandRank()
     {
         rankHand();
         return rank;
@@ -216,25 +223,6 @@ public class Player
         return result;
     }
 
-    /**
-     *Gets the images associated with the cards in hand.
-     *pre: hand contains 5 cards
-     *post: returns an array of ImageIcon corresponding to each card in the hand.
-     */
-    public ImageIcon[] getCardImages()
-    {
-        ImageIcon[] cards;
-        int count = 0;
-        cards = new ImageIcon[5];
-        for (Card i : this.hand)
-        {
-            cards[count] = i.getCardImage();
-            count++;
-        }
-        return cards;
-
-    }
-
     /**
      *Gets the number of cards in a player's hand.
      *pre: none
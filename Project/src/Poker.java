@@ -1,195 +1,208 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
 import java.util.ArrayList;
-
+import java.util.concurrent.ForkJoinPool;
+import javax.management.JMException;
+
+/**
+ * Command line of the simulation: samples the hand distribution against the exact one, then
+ * plays a few dealt hands by the chosen strategy (see SimulationEngine).
+ *
+ * Usage: java Poker [iterations|all] [plays] [--seed=n] [--exact] [--adaptive] [--importance]
+ *                   [--utility=name] [--paytable=file] [--bet=n] [--table=file]
+ *                   [--progress=seconds] [--checkpoint=file]
+ *        java Poker --resume file
+ */
 public class Poker
 {
-    public static String[] handNames = { "Nothing", "Jacks or better", "Two pair",
-                                         "Three of a kind", "Straight", "Flush",
-                                         "Full house", "Four of a kind",
-                                         "Straight flush", "Royal flush" };
-
-    // NOTE: To qualify for the 800 to 1 payout on a royal flush, the player
-    // must bet five coins.
-    public static int[] payoutTable = { 0, 1, 2, 3, 4, 6, 9, 25, 50, 800 };
-    public static int[] preDrawFrequencies = { 2062860, 337920, 123552, 54912, 10200,
-                                               5108, 3744, 624, 36, 4 };
-
-    public static int numIter = 3500000;
-    public static int numPlays = 7;
-    public static float winnings = 0;
-
-    public static int numHands = 2598960;
-    public static int numRanks = 10;
-    public static int handSize = 5;
-
-    private static class HandValue {
-        private final ArrayList<Card> hand;
-        private final float value;
-
-        private HandValue(ArrayList<Card> hand, float value) {
-            this.hand = hand;
-            this.value = value;
-        }
-    }
+    private static final String[] handNames = { "Nothing", "Jacks or better", "Two pair",
+                                                "Three of a kind", "Straight", "Flush",
+                                                "Full house", "Four of a kind",
+                                                "Straight flush", "Royal flush" };
 
-    public static void main(String[] args)
-    {
-        numIter = (args.length > 0) ? Integer.parseInt(args[0]) : numIter;
-        numPlays = (args.length > 1) ? Integer.parseInt(args[1]) : numPlays;
-
-        Player player = new Player();
-        Deck deck = new Deck();
+    private static final int[] preDrawFrequencies = { 2062860, 337920, 123552, 54912, 10200,
+                                                      5108, 3744, 624, 36, 4 };
 
-        test(player, deck);
-    }
+    public static final int numHands = 2598960;
+    public static final int numRanks = 10;
+    public static final int handSize = 5;
 
-    private static void test(Player player, Deck deck)
+    public static String handName(int rank)
     {
-        int[] counts = observed(player, deck);
-        float[] expectedCounts = expected();
-
-        handDistribution(counts);
-        chiSquareTest(counts, expectedCounts);
-
-        for(int i = 0; i < numPlays; ++i)
-            playthrough(player, deck);
+        return handNames[rank];
     }
 
-    private static int[] observed(Player player, Deck deck)
+    /**
+     *Gets the number of five card hands of a rank.
+     *pre: 0 <= rank < numRanks
+     *post: returns the number of the numHands deals that have the rank
+     */
+    public static int preDrawFrequency(int rank)
     {
-        int[] counts = new int[numRanks];
-
-        for(int i = 0; i < numIter; ++i) {
-            player.setHand(deck.sample(handSize));
-            counts[player.getHandRank()] += 1;
-        }
-
-        return counts;
+        return preDrawFrequencies[rank];
     }
 
-    private static float[] expected()
+    public static void main(String[] args) throws IOException, JMException
     {
-        float[] counts = new float[numRanks];
-
-        for(int i = 0; i < numRanks; ++i)
-            counts[i] = (float)numIter*preDrawFrequencies[i] / numHands;
-
-        return counts;
-    }
-
-    private static void handDistribution(int[] counts)
-    {
-        System.out.println("\nHand distribution:\n");
-
-        for(int i = numRanks-1; i >= 0; --i)
-            System.out.format("%17s: %9.6f %% %n", handNames[i],
-                              100.0*counts[i] / numIter);
-    }
+        Checkpoint checkpoint = null;
+
+        // NOTE: "--checkpoint=file" saves the run's progress in file, and
+        // "--resume file" continues from it with the command line it saved,
+        // printing what the whole run would have.
+        if(args.length > 0 && args[0].equals("--resume")) {
+            if(args.length != 2) {
+                usage("--resume needs the checkpoint file");
+                return;
+            }
 
-    private static void chiSquareTest(int[] observed, float[] expected)
-    {
-        float result = 0;
-        float deviation = 0;
+            checkpoint = Checkpoint.read(new File(args[1]));
+            args = checkpoint.getArgs();
+        } else {
+            for(String arg : args)
+                if(arg.startsWith("--checkpoint="))
+                    checkpoint = new Checkpoint(new File(arg.substring(arg.indexOf('=') + 1)),
+                                                args);
+        }
 
-        System.out.println("\nChi-square test:");
-        System.out.format("%n%27s\t%s\t%s %n", "Observed", "Expected", "Deviation");
+        SimulationConfig.Builder builder;
+        try {
+            builder = options(args);
+        } catch(IllegalArgumentException e) {
+            usage(e.getMessage());
+            return;
+        }
 
-        for(int i = numRanks-1; i >= 0; --i) {
-            deviation = (float)Math.pow(observed[i] - expected[i], 2) / expected[i];
-            result += deviation;
-            System.out.format("%17s: %-7d\t%-10.2f\t%-5.3f %n",
-                              handNames[i], observed[i], expected[i], deviation);
+        // NOTE: A resumed run keeps the seed and shards it was started with.
+        DataInputStream saved = (checkpoint != null) ? checkpoint.get("run") : null;
+        if(saved != null)
+            builder.seed(saved.readLong()).numShards(saved.readInt());
+
+        SimulationConfig config;
+        try {
+            config = builder.build();
+        } catch(IllegalArgumentException e) {
+            usage(e.getMessage());
+            return;
         }
 
-        System.out.format("%n%46s: %5.3f %n%n", "Total", result);
-    }
+        Metrics metrics = new Metrics("Poker");
+        SimulationEngine engine;
+        try {
+            engine = new SimulationEngine(config, ForkJoinPool.commonPool(), metrics);
+        } catch(IOException e) {
+            usage(e.getMessage());
+            return;
+        }
 
-    private static void playthrough(Player player, Deck deck)
-    {
-        player.setHand(deck.deal(handSize));
+        if(checkpoint != null && saved == null) {
+            ByteArrayOutputStream run = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(run);
+            out.writeLong(config.getSeed());
+            out.writeInt(config.getNumShards());
+            checkpoint.finish("run", run);
+        }
 
-        System.out.format("%17s: ", "Hand dealt");
-        printHand(player.getHand());
+        metrics.register();
+        if(config.getProgressSeconds() > 0)
+            metrics.startProgressLog(System.out, config.getProgressSeconds());
 
-        HandValue bestChoice = optimalStrategy(player, deck);
-        winnings += (bestChoice.value - 1);
+        engine.run(System.out, checkpoint);
 
-        System.out.format("%17s: ", "Optimal strategy");
-        printHand(bestChoice.hand);
-        System.out.format("%17s: %4.2f (%4.2f) %n%n", "Expected payout",
-                          bestChoice.value, winnings);
+        if(checkpoint != null)
+            checkpoint.delete();
 
-        deck.restore();
+        metrics.stopProgressLog();
+        System.out.println(metrics.getProgress());
     }
 
-    public static HandValue optimalStrategy(Player player, Deck deck)
+    /**
+     *Parses the command line into the settings of a run.
+     *pre: args is the command line, without "--resume"
+     *post: returns the settings, or throws IllegalArgumentException for an argument it does
+     *      not know
+     */
+    public static SimulationConfig.Builder options(String[] args) throws IOException
     {
-        int rank = 0;
-        int bestChoice = 0;
-        int numChoices = 32;
-        int numCardsHeld = 0;
-        int sampleSize = 766969;
-        float expectedPayout = 0;
-
-        // NOTE: Massage these parameters to adjust the speed/accuracy ratio.
-        // Each entry corresponds to the number of cards held. E.g., if 4 cards
-        // are held, sample 752 times.
-        int[] sampleSizes = { sampleSize, 356730, 64860, 8648, 752, 1 };
-
-        int[][] payoutFrequencies = new int[numChoices][numRanks];
-        float[] expectedPayouts = new float[numChoices];
-
-        ArrayList<ArrayList<Card>> cardsHeld = new ArrayList<ArrayList<Card>>(numChoices);
-        ArrayList<Card> cardsDrawn;
-
-        for(int i = 0; i < (1 << handSize); ++i) {
-            ArrayList<Card> hand = new ArrayList<Card>(handSize);
-
-            for(int j = 0; j < handSize; j++)
-                if(((i >> j) & 1) == 1)
-                    hand.add(player.getCard(j));
-
-            cardsHeld.add(hand);
-        }
-
-        for(int i = 0; i < numChoices; ++i) {
-            player.setHand(cardsHeld.get(i));
-            numCardsHeld = player.handSize();
-            sampleSize = sampleSizes[numCardsHeld];
-
-            for(int j = 0; j < sampleSize; ++j) {
-                cardsDrawn = deck.sample(handSize - numCardsHeld);
-                player.addCards(cardsDrawn);
-                rank = player.getHandRank();
-                payoutFrequencies[i][rank] += payoutTable[rank];
-                player.removeCards(cardsDrawn);
-            }
-
-            for(int k = 0; k < numRanks; ++k)
-                expectedPayout += payoutFrequencies[i][k];
-
-            expectedPayouts[i] = expectedPayout / sampleSize;
-            expectedPayout = 0;
+        SimulationConfig.Builder builder = new SimulationConfig.Builder();
+        int position = 0;
+
+        for(String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+
+            if(arg.equals("--exact"))
+                builder.exact(true);
+            else if(arg.equals("--adaptive"))
+                builder.adaptive(true);
+            else if(arg.equals("--importance"))
+                builder.importance(true);
+            else if(arg.startsWith("--seed="))
+                builder.seed(Long.parseLong(value));
+            // NOTE: e.g. "meanVariance:0.05" or "kelly:200" picks holds by that
+            // utility, solved exactly, instead of by expected payout.
+            else if(arg.startsWith("--utility="))
+                builder.utility(Utility.create(value));
+            else if(arg.startsWith("--paytable="))
+                builder.paytable(Paytable.load(new File(value)));
+            else if(arg.startsWith("--bet="))
+                builder.bet(Integer.parseInt(value));
+            // NOTE: Built offline by StrategyTable, e.g. strategy-0-1-2-3-4-6-9-25-50-800.bin
+            // for Jacks or Better at its maximum bet; the plays look their holds up in it.
+            else if(arg.startsWith("--table="))
+                builder.table(new File(value));
+            else if(arg.startsWith("--progress="))
+                builder.progressSeconds(Integer.parseInt(value));
+            else if(arg.startsWith("--checkpoint="))
+                continue; // read by main
+            else if(arg.startsWith("--"))
+                throw new IllegalArgumentException("Unknown option " + arg);
+            // NOTE: "all" ranks every hand once instead of sampling numIter of them.
+            else if(position == 0 && arg.equals("all"))
+                builder.exhaustive(true);
+            else if(position == 0)
+                builder.numIter(Integer.parseInt(arg));
+            else if(position == 1)
+                builder.numPlays(Integer.parseInt(arg));
+            else
+                throw new IllegalArgumentException("Unexpected argument " + arg);
+
+            if(!arg.startsWith("--"))
+                ++position;
         }
 
-        for(int i = 0; i < numChoices; ++i)
-            if(expectedPayouts[i] > expectedPayouts[bestChoice])
-                bestChoice = i;
+        return builder;
+    }
 
-        return new HandValue(cardsHeld.get(bestChoice), expectedPayouts[bestChoice]);
+    private static void usage(String error)
+    {
+        System.err.println(error);
+        System.err.println("Usage: java Poker [iterations|all] [plays] [--seed=n] [--exact] "
+                           + "[--adaptive] [--importance] [--utility=name] [--paytable=file] "
+                           + "[--bet=n] [--table=file] [--progress=seconds] "
+                           + "[--checkpoint=file]");
+        System.err.println("       java Poker --resume file");
+        System.exit(1);
     }
 
     public static void printHand(ArrayList<Card> hand) {
+        printHand(System.out, hand);
+    }
+
+    public static void printHand(PrintStream out, ArrayList<Card> hand) {
         int numCards = hand.size();
 
-        System.out.print("{");
+        out.print("{");
 
         if(numCards > 0) {
             for(int i = 0; i < numCards-1; ++i)
-                System.out.print(hand.get(i) + ", ");
+                out.print(hand.get(i) + ", ");
 
-            System.out.print(hand.get(numCards - 1));
+            out.print(hand.get(numCards - 1));
         }
 
-        System.out.println("}");
+        out.println("}");
     }
 }
\ No newline at end of file
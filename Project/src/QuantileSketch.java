@@ -0,0 +1,130 @@
+import java.util.Arrays;
+
+/**
+ * Streaming quantile estimates in constant memory, using the P-square algorithm of Jain and
+ * Chlamtac: five markers per quantile whose heights are adjusted with a piecewise parabolic
+ * fit as values arrive, so no values are stored.
+ */
+public class QuantileSketch
+{
+    private final double[] probabilities;
+    private final double[][] heights;   // marker heights per quantile
+    private final double[][] positions; // actual marker positions per quantile
+    private final double[][] desired;   // desired marker positions per quantile
+    private long count;
+
+    /**
+     *Constructor method for a sketch of the given quantiles.
+     *pre: every probability is strictly between 0 and 1
+     *post: variables are initialised
+     */
+    public QuantileSketch(double... probabilities)
+    {
+        this.probabilities = probabilities.clone();
+        this.heights = new double[probabilities.length][5];
+        this.positions = new double[probabilities.length][5];
+        this.desired = new double[probabilities.length][5];
+        this.count = 0;
+
+        for(int i = 0; i < probabilities.length; ++i) {
+            double p = probabilities[i];
+            positions[i] = new double[] { 0, 1, 2, 3, 4 };
+            desired[i] = new double[] { 0, 2 * p, 4 * p, 2 + 2 * p, 4 };
+        }
+    }
+
+    public void add(double x)
+    {
+        if(count < 5) {
+            for(double[] h : heights)
+                h[(int)count] = x;
+
+            if(++count == 5)
+                for(double[] h : heights)
+                    Arrays.sort(h);
+            return;
+        }
+
+        ++count;
+
+        for(int i = 0; i < probabilities.length; ++i)
+            add(x, probabilities[i], heights[i], positions[i], desired[i]);
+    }
+
+    /**
+     *Gets the estimate of a quantile.
+     *pre: 0 <= i < the number of quantiles
+     *post: returns the estimate of the ith quantile, NaN before any value is added
+     */
+    public double getQuantile(int i)
+    {
+        if(count == 0)
+            return Double.NaN;
+
+        if(count < 5) {
+            double[] seen = Arrays.copyOf(heights[i], (int)count);
+            Arrays.sort(seen);
+            return seen[(int)Math.min(count - 1, Math.round(probabilities[i] * (count - 1)))];
+        }
+
+        return heights[i][2];
+    }
+
+    public double getProbability(int i)
+    {
+        return probabilities[i];
+    }
+
+    public int size()
+    {
+        return probabilities.length;
+    }
+
+    public long getCount()
+    {
+        return count;
+    }
+
+    private static void add(double x, double p, double[] q, double[] n, double[] np)
+    {
+        int k;
+
+        if(x < q[0]) {
+            q[0] = x;
+            k = 0;
+        } else if(x >= q[4]) {
+            q[4] = x;
+            k = 3;
+        } else {
+            k = 0;
+            while(x >= q[k + 1])
+                ++k;
+        }
+
+        for(int i = k + 1; i < 5; ++i)
+            n[i] += 1;
+
+        np[1] += p / 2;
+        np[2] += p;
+        np[3] += (1 + p) / 2;
+        np[4] += 1;
+
+        for(int i = 1; i <= 3; ++i) {
+            double d = np[i] - n[i];
+
+            if((d >= 1 && n[i+1] - n[i] > 1) || (d <= -1 && n[i-1] - n[i] < -1)) {
+                int s = (d > 0) ? 1 : -1;
+                double parabolic = q[i] + s / (n[i+1] - n[i-1])
+                    * ((n[i] - n[i-1] + s) * (q[i+1] - q[i]) / (n[i+1] - n[i])
+                       + (n[i+1] - n[i] - s) * (q[i] - q[i-1]) / (n[i] - n[i-1]));
+
+                if(q[i-1] < parabolic && parabolic < q[i+1])
+                    q[i] = parabolic;
+                else
+                    q[i] += s * (q[i+s] - q[i]) / (n[i+s] - n[i]);
+
+                n[i] += s;
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * Source of random numbers for a Deck. Generators are seeded explicitly so a run can be replayed,
+ * and split into independent streams so each worker thread can own one instead of contending on
+ * a shared generator.
+ */
+public abstract class RandomSource
+{
+    /**
+     *Gets the next 64 random bits.
+     *pre: none
+     *post: returns a uniformly distributed long
+     */
+    public abstract long nextLong();
+
+    /**
+     *Splits off a new generator.
+     *pre: none
+     *post: returns a generator whose stream is independent of this one's
+     */
+    public abstract RandomSource split();
+
+    /**
+     *Gets a random number below a bound, without modulo bias (Lemire's method).
+     *pre: bound > 0
+     *post: returns a uniformly distributed int from 0 to bound - 1
+     */
+    public int nextInt(int bound)
+    {
+        long product = (nextLong() >>> 32) * bound;
+
+        if((product & 0xffffffffL) < bound) {
+            long threshold = (0x100000000L - bound) % bound;
+
+            while((product & 0xffffffffL) < threshold)
+                product = (nextLong() >>> 32) * bound;
+        }
+
+        return (int)(product >>> 32);
+    }
+
+    /**
+     *Gets a random number from 0 (inclusive) to 1 (exclusive).
+     *pre: none
+     *post: returns a uniformly distributed double with 53 random bits
+     */
+    public double nextDouble()
+    {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     *Creates a generator by name.
+     *pre: name is "splittable" or "xoroshiro"
+     *post: returns the generator seeded with seed
+     */
+    public static RandomSource create(String name, long seed)
+    {
+        if(name.equals("splittable"))
+            return new SplittableSource(seed);
+        if(name.equals("xoroshiro"))
+            return new Xoroshiro128PlusPlus(seed);
+
+        throw new IllegalArgumentException("Unknown random source: " + name);
+    }
+}
@@ -0,0 +1,260 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Exact bankroll distribution of a player who plays optimally for a number of hands, and the
+ * risk of running out of credits on the way. The bankroll is counted in bets: a hand returns
+ * payoutPerCoin - 1 bets, so it loses at most one bet, and a player with less than one bet left
+ * is ruined and stops. Starting from the chance of each final rank (see ExactRtpTask), the
+ * distribution is carried forward one hand at a time: each of the ten outcomes shifts and scales
+ * the whole distribution, and the mass reaching zero bets is taken out as ruin.
+ *
+ * Bankrolls are kept up to a ceiling, and the mass above it is pooled. The ceiling is set so
+ * that a player above it is ruined within the hands left with chance below epsilon (Bernstein's
+ * inequality for the payouts, which are never negative), so the risk of ruin is exact to within
+ * epsilon and the distribution is exact below the ceiling.
+ *
+ * Usage: java RiskOfRuin [bankroll in credits] [bet] [hands] [paytable file|default]
+ */
+public class RiskOfRuin
+{
+    public static final double defaultEpsilon = 1e-12;
+
+    private static final double[] quantiles = { 0.01, 0.05, 0.25, 0.5, 0.75, 0.95, 0.99 };
+
+    private final int bet;
+    private final double epsilon;
+    private final int[] steps;           // bets won or lost by each outcome of a hand
+    private final double[] probabilities; // chance of each outcome
+    private final double mean;           // expected bets won per hand
+    private final double meanSquare;     // expected square of the payout in bets
+
+    /**
+     * The distribution after a number of hands.
+     */
+    public static class Result
+    {
+        private final int bet;
+        private final double[] bankrolls; // chance of ending with each number of bets
+        private final double above;       // chance of ending at or above the ceiling
+        private final double[] ruin;      // ruin[n], chance of being ruined within n hands
+
+        private Result(int bet, double[] bankrolls, double above, double[] ruin)
+        {
+            this.bet = bet;
+            this.bankrolls = bankrolls;
+            this.above = above;
+            this.ruin = ruin;
+        }
+
+        /**
+         *Gets the chance of being ruined.
+         *pre: 0 <= numHands <= the hands played
+         *post: returns the chance of having less than a bet left within numHands hands
+         */
+        public double getRuin(int numHands)
+        {
+            return ruin[numHands];
+        }
+
+        public double getRuin()
+        {
+            return ruin[ruin.length - 1];
+        }
+
+        /**
+         *Gets the chance of ending with a number of credits.
+         *pre: credits >= 0
+         *post: returns the chance of ending with credits, 0 unless a multiple of the bet below
+         *      the ceiling; the ruined players end with 0
+         */
+        public double getProbability(long credits)
+        {
+            if(credits % bet != 0 || credits / bet >= bankrolls.length)
+                return 0;
+
+            return bankrolls[(int)(credits / bet)];
+        }
+
+        /**
+         *Gets the chance of ending at or above the ceiling.
+         *pre: none
+         *post: returns the pooled mass, whose bankrolls are not kept apart
+         */
+        public double getAbove()
+        {
+            return above;
+        }
+
+        public long getCeiling()
+        {
+            return (long)bankrolls.length * bet;
+        }
+
+        /**
+         *Gets a quantile of the final bankroll.
+         *pre: 0 < p < 1
+         *post: returns the smallest credits c with P(bankroll <= c) >= p, or -1 when that is
+         *      at or above the ceiling
+         */
+        public long getQuantile(double p)
+        {
+            double total = 0;
+
+            for(int i = 0; i < bankrolls.length; ++i) {
+                total += bankrolls[i];
+                if(total >= p)
+                    return (long)i * bet;
+            }
+
+            return -1;
+        }
+    }
+
+    /**
+     *Constructor method from the final rank chances of optimal play.
+     *pre: rankProbabilities and the paytable have an entry per rank, 1 <= bet <= maxBet,
+     *     0 < epsilon < 1
+     *post: variables are initialised; the risk of ruin is exact to within epsilon
+     */
+    public RiskOfRuin(double[] rankProbabilities, Paytable paytable, int bet, double epsilon)
+    {
+        this.bet = bet;
+        this.epsilon = epsilon;
+        this.steps = new int[rankProbabilities.length];
+        this.probabilities = rankProbabilities.clone();
+
+        double mean = 0, meanSquare = 0;
+        for(int i = 0; i < steps.length; ++i) {
+            int payout = paytable.payoutPerCoin(i, bet);
+            steps[i] = payout - 1;
+            mean += probabilities[i] * steps[i];
+            meanSquare += probabilities[i] * payout * payout;
+        }
+
+        this.mean = mean;
+        this.meanSquare = meanSquare;
+    }
+
+    /**
+     *Constructor method solving the paytable for its final rank chances.
+     *pre: 1 <= bet <= paytable.getMaxBet()
+     *post: variables are initialised; the risk of ruin is exact to within defaultEpsilon
+     */
+    public RiskOfRuin(Paytable paytable, int bet)
+    {
+        this(ExactRtpTask.finalRankProbabilities(paytable.getPayouts(bet)), paytable, bet,
+             defaultEpsilon);
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        long credits = (args.length > 0) ? Long.parseLong(args[0]) : 100;
+        int bet = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+        int numHands = (args.length > 2) ? Integer.parseInt(args[2]) : 10000;
+        Paytable paytable = (args.length > 3 && !args[3].equals("default"))
+            ? Paytable.load(new File(args[3])) : Paytable.JACKS_OR_BETTER;
+
+        long start = System.nanoTime();
+        RiskOfRuin engine = new RiskOfRuin(paytable, bet);
+        long solved = System.nanoTime();
+        Result result = engine.play(credits, numHands);
+        long done = System.nanoTime();
+
+        System.out.format("%nBankroll %d credits, bet %d, %d hands %n", credits, bet, numHands);
+        System.out.format("%nRisk of ruin: %.6f %n", result.getRuin());
+
+        for(int n = numHands / 10; n < numHands && n > 0; n += numHands / 10)
+            System.out.format("%13s %d hands: %.6f %n", "within", n, result.getRuin(n));
+
+        System.out.println("\nFinal bankroll:\n");
+        for(double p : quantiles) {
+            long quantile = result.getQuantile(p);
+            System.out.format("%17.0f%%: %s %n", 100 * p,
+                              (quantile < 0) ? ">= " + result.getCeiling() : quantile + "");
+        }
+
+        System.out.format("%n%17s: %.6f %n", "P(>= ceiling " + result.getCeiling() + ")",
+                          result.getAbove());
+        System.out.format("%nSolved the paytable in %.2f s, played the hands in %.3f s %n",
+                          (solved - start) / 1e9, (done - solved) / 1e9);
+    }
+
+    /**
+     *Plays a number of hands from a bankroll.
+     *pre: credits >= 0, numHands >= 0
+     *post: returns the distribution of the bankroll and the risk of ruin after each hand
+     */
+    public Result play(long credits, int numHands)
+    {
+        int start = (int)(credits / bet);
+        int ceiling = (int)Math.min(Integer.MAX_VALUE - 1,
+                                    Math.max(start + 1, (long)Math.ceil(safeBankroll(numHands))));
+
+        double[] current = new double[ceiling];
+        double[] next = new double[ceiling];
+        double[] ruin = new double[numHands + 1];
+        double above = 0;
+        int highest = start; // no mass above this many bets yet
+        int maxStep = maxStep();
+
+        current[start] = 1;
+        if(start == 0)
+            Arrays.fill(ruin, 1);
+
+        for(int n = 1; n <= numHands && start > 0; ++n) {
+            Arrays.fill(next, 0, Math.min(ceiling, highest + maxStep + 1), 0);
+            next[0] = current[0];
+
+            for(int k = 0; k < steps.length; ++k) {
+                int step = steps[k];
+                double p = probabilities[k];
+                int last = Math.min(highest, ceiling - 1 - step); // highest level kept apart
+
+                addScaled(current, 1, last, p, next, 1 + step);
+
+                for(int i = Math.max(last + 1, 1); i <= highest; ++i)
+                    above += p * current[i];
+            }
+
+            highest = Math.min(ceiling - 1, highest + maxStep);
+            ruin[n] = next[0];
+
+            double[] temp = current;
+            current = next;
+            next = temp;
+        }
+
+        return new Result(bet, current, above, ruin);
+    }
+
+    // to[toStart + i] += scale * from[fromStart + i] for fromStart <= fromStart + i <= fromEnd
+    private static void addScaled(double[] from, int fromStart, int fromEnd, double scale,
+                                  double[] to, int toStart)
+    {
+        int offset = toStart - fromStart;
+
+        for(int i = fromStart; i <= fromEnd; ++i)
+            to[i + offset] += scale * from[i];
+    }
+
+    // Bankroll in bets from which being ruined within numHands hands has chance below epsilon:
+    // with Y the payout in bets (never negative), P(sum of Y <= n - b) <= exp(-t^2 / (2 n E[Y^2]))
+    // for t = b + n * mean.
+    private double safeBankroll(int numHands)
+    {
+        return Math.max(0, -mean * numHands)
+               + Math.sqrt(2 * numHands * meanSquare * Math.log(1 / epsilon)) + 1;
+    }
+
+    private int maxStep()
+    {
+        int max = 0;
+
+        for(int step : steps)
+            max = Math.max(max, step);
+
+        return max;
+    }
+}
@@ -0,0 +1,296 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+
+/**
+ * Plays a paytable for a large number of hands with a hold strategy and measures the real return
+ * to player. Results stream into constant memory accumulators: mean and variance of the payout,
+ * hits per final hand rank, the longest losing streak and quantiles of the return of a session
+ * of hands. Instead of printing every hand, a one line checkpoint of the running totals is
+ * printed periodically.
+ *
+ * Usage: java RtpSimulator [hands] [strategy] [seed] [checkpoint interval] [paytable file]
+ *        strategy: table, cached, bound, exact, adaptive, drawFive, or a utility such as
+ *        meanVariance:0.05 or kelly:200 (see Utility.create); table, the default once
+ *        StrategyTable has built its file, else cached
+ */
+public class RtpSimulator
+{
+    private static final double[] defaultSessionQuantiles = { 0.01, 0.05, 0.25, 0.5, 0.75, 0.95,
+                                                              0.99 };
+
+    private final Paytable paytable;
+    private final int bet;
+    private final int[] payoutTable; // per coin at bet
+    private final HoldStrategy strategy;
+    private final Deck deck;
+    private final HandBits hand;
+    private final int sessionLength;
+
+    private final RunningStats payouts;
+    private final long[] rankCounts;
+    private final QuantileSketch sessions;
+    private long sessionPayout;
+    private long losingStreak;
+    private long longestLosingStreak;
+
+    /**
+     *Constructor method for a simulator betting the same amount every hand. Payouts are
+     *recorded per coin bet, so the mean payout is the return to player.
+     *pre: 1 <= bet <= paytable.getMaxBet(), sessionLength > 0, deck is not shared
+     *post: variables are initialised, no hands have been played; the 1, 5, 25, 50, 75, 95 and
+     *      99th percentiles of the session return are estimated
+     */
+    public RtpSimulator(Paytable paytable, int bet, HoldStrategy strategy, Deck deck,
+                        int sessionLength)
+    {
+        this(paytable, bet, strategy, deck, sessionLength, defaultSessionQuantiles);
+    }
+
+    /**
+     *Constructor method for a simulator estimating the given quantiles of the session return.
+     *pre: as above, every quantile is strictly between 0 and 1
+     *post: variables are initialised, no hands have been played
+     */
+    public RtpSimulator(Paytable paytable, int bet, HoldStrategy strategy, Deck deck,
+                        int sessionLength, double... sessionQuantiles)
+    {
+        this.paytable = paytable;
+        this.bet = bet;
+        this.payoutTable = paytable.getPayouts(bet);
+        this.strategy = strategy;
+        this.deck = deck;
+        this.hand = new HandBits();
+        this.sessionLength = sessionLength;
+
+        this.payouts = new RunningStats();
+        this.rankCounts = new long[Poker.numRanks];
+        this.sessions = new QuantileSketch(sessionQuantiles);
+        this.sessionPayout = 0;
+        this.losingStreak = 0;
+        this.longestLosingStreak = 0;
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        long numHands = (args.length > 0) ? Long.parseLong(args[0]) : 100000000L;
+        long seed = (args.length > 2) ? Long.parseLong(args[2]) : System.nanoTime();
+        long interval = (args.length > 3) ? Long.parseLong(args[3]) : 10000000L;
+        Paytable paytable = (args.length > 4) ? Paytable.load(new File(args[4]))
+                                              : Paytable.JACKS_OR_BETTER;
+        int bet = paytable.getMaxBet();
+
+        // NOTE: The table is the default once StrategyTable has built it;
+        // until then decisions are solved exactly and cached.
+        boolean tableBuilt = new File(StrategyTable.fileName(paytable.getPayouts(bet))).exists();
+        String strategyName = (args.length > 1) ? args[1] : tableBuilt ? "table" : "cached";
+
+        if(strategyName.equals("table") && !tableBuilt) {
+            System.err.println("No strategy table for this paytable; build it with "
+                               + "\"java StrategyTable [paytable file|default] [bet]\" "
+                               + "or pick another strategy, e.g. cached");
+            System.exit(1);
+        }
+
+        HoldStrategy strategy = strategy(strategyName, paytable, bet);
+        RtpSimulator simulator = new RtpSimulator(paytable, bet, strategy,
+                                                  new Deck(new Xoroshiro128PlusPlus(seed)), 1000);
+
+        System.out.println("\nStrategy: " + strategyName);
+        System.out.println("Seed: " + seed + "\n");
+
+        long start = System.nanoTime();
+        while(simulator.getHandsPlayed() < numHands) {
+            simulator.play(Math.min(interval, numHands - simulator.getHandsPlayed()));
+            simulator.printCheckpoint(System.out, System.nanoTime() - start);
+        }
+
+        simulator.printReport(System.out);
+
+        if(strategy instanceof HoldCache)
+            System.out.println("\nHold cache: " + strategy);
+        if(strategy instanceof BranchAndBound)
+            System.out.println("\nBranch and bound: " + strategy);
+    }
+
+    /**
+     *Creates a strategy by name.
+     *pre: name is "table" (needs the table file of StrategyTable), "exact" or "drawFive"
+     *post: returns the strategy, or throws IOException if the table cannot be opened
+     */
+    public static HoldStrategy strategy(String name, Paytable paytable, int bet)
+        throws IOException
+    {
+        final int[] payoutTable = paytable.getPayouts(bet);
+
+        if(name.equals("table"))
+            return StrategyTable.get(paytable, bet);
+
+        if(name.equals("cached"))
+            return new HoldCache(payoutTable);
+
+        if(name.equals("exact"))
+            return new HoldStrategy() {
+
+                @Override
+                public int chooseHold(HandBits dealt, Deck deck) {
+                    int[][] counts = ExactStrategy.holdCounts(dealt.toCards(), deck.getCards());
+                    return ExactStrategy.bestChoice(ExactStrategy.expectedPayouts(counts, payoutTable));
+                }
+
+            };
+
+        if(name.equals("bound"))
+            return new BranchAndBound(payoutTable);
+
+        if(name.equals("adaptive"))
+            return new AdaptiveStrategy(payoutTable);
+
+        if(name.contains(":")) { // a utility, e.g. meanVariance:0.05 or kelly:200
+            final Utility utility = Utility.create(name);
+
+            return new HoldStrategy() {
+
+                @Override
+                public int chooseHold(HandBits dealt, Deck deck) {
+                    return new HoldOutcomes(dealt.toCards(), deck.getCards()).best(utility, payoutTable);
+                }
+
+            };
+        }
+
+        if(name.equals("drawFive"))
+            return new HoldStrategy() {
+
+                @Override
+                public int chooseHold(HandBits dealt, Deck deck) {
+                    return 0;
+                }
+
+            };
+
+        throw new IllegalArgumentException("Unknown strategy: " + name);
+    }
+
+    /**
+     *Plays hands.
+     *pre: numHands >= 0
+     *post: numHands more hands have been played and recorded
+     */
+    public void play(long numHands)
+    {
+        for(long i = 0; i < numHands; ++i)
+            playHand();
+    }
+
+    /**
+     *Deals a hand, holds by the strategy, draws and records the payout.
+     *pre: none
+     *post: one more hand has been played and recorded
+     */
+    public void playHand()
+    {
+        deck.restore();
+        hand.clear();
+        deck.deal(hand, Poker.handSize);
+
+        int hold = strategy.chooseHold(hand, deck);
+
+        for(int j = Poker.handSize - 1; j >= 0; --j)
+            if(((hold >> j) & 1) == 0)
+                hand.remove(hand.get(j));
+
+        deck.deal(hand, Poker.handSize - hand.size());
+        record(HandEvaluator.rank(hand));
+    }
+
+    private void record(int rank)
+    {
+        int payout = payoutTable[rank];
+
+        payouts.add(payout);
+        rankCounts[rank] += 1;
+
+        // NOTE: A payout of one coin only returns the bet, it is not a loss.
+        losingStreak = (payout == 0) ? losingStreak + 1 : 0;
+        longestLosingStreak = Math.max(longestLosingStreak, losingStreak);
+
+        sessionPayout += payout;
+        if(payouts.getCount() % sessionLength == 0) {
+            sessions.add((double)sessionPayout / sessionLength);
+            sessionPayout = 0;
+        }
+    }
+
+    public Paytable getPaytable()
+    {
+        return paytable;
+    }
+
+    public int getBet()
+    {
+        return bet;
+    }
+
+    public long getHandsPlayed()
+    {
+        return payouts.getCount();
+    }
+
+    public RunningStats getPayouts()
+    {
+        return payouts;
+    }
+
+    public long[] getRankCounts()
+    {
+        return rankCounts.clone();
+    }
+
+    public long getLongestLosingStreak()
+    {
+        return longestLosingStreak;
+    }
+
+    public QuantileSketch getSessions()
+    {
+        return sessions;
+    }
+
+    /**
+     *Prints the running totals on one line.
+     *pre: elapsed is the time played so far in nanoseconds
+     *post: the line is printed
+     */
+    public void printCheckpoint(PrintStream out, long elapsed)
+    {
+        out.format("%,15d hands  RTP %9.6f %% +- %8.6f  %,12.0f hands/s %n",
+                   getHandsPlayed(), 100 * payouts.getMean(),
+                   100 * payouts.getStandardError(), getHandsPlayed() / (elapsed / 1e9));
+    }
+
+    /**
+     *Prints the final statistics.
+     *pre: none
+     *post: the report is printed
+     */
+    public void printReport(PrintStream out)
+    {
+        out.println("\nFinal hand distribution:\n");
+
+        for(int i = Poker.numRanks - 1; i >= 0; --i)
+            out.format("%17s: %,15d  %9.6f %% %n", Poker.handName(i), rankCounts[i],
+                       100.0 * rankCounts[i] / getHandsPlayed());
+
+        out.format("%n%26s: %9.6f %% %n", "Return to player", 100 * payouts.getMean());
+        out.format("%26s: %9.6f %n", "Variance per hand", payouts.getVariance());
+        out.format("%26s: %,d %n", "Longest losing streak", longestLosingStreak);
+        out.format("%n%s %d hands:%n%n", "Return per session of", sessionLength);
+
+        for(int i = 0; i < sessions.size(); ++i)
+            out.format("%25.0f%%: %9.4f %n", 100 * sessions.getProbability(i),
+                       sessions.getQuantile(i));
+
+        out.println();
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Streaming mean and variance (Welford's method) in constant memory. Two accumulators can be
+ * merged (Chan et al.), so shards of a simulation can be combined.
+ */
+public class RunningStats
+{
+    private long count;
+    private double mean;
+    private double m2; // sum of squared differences from the mean
+
+    public RunningStats()
+    {
+        this(0, 0, 0);
+    }
+
+    /**
+     *Constructor method restoring a saved accumulator.
+     *pre: the values were read from getCount, getMean and getSumOfSquares
+     *post: the accumulator continues where the saved one stopped
+     */
+    public RunningStats(long count, double mean, double m2)
+    {
+        this.count = count;
+        this.mean = mean;
+        this.m2 = m2;
+    }
+
+    public void add(double x)
+    {
+        ++count;
+        double delta = x - mean;
+        mean += delta / count;
+        m2 += delta * (x - mean);
+    }
+
+    /**
+     *Adds the values seen by another accumulator.
+     *pre: none
+     *post: this accumulator describes both sets of values
+     */
+    public void merge(RunningStats other)
+    {
+        if(other.count == 0)
+            return;
+
+        long total = count + other.count;
+        double delta = other.mean - mean;
+
+        m2 += other.m2 + delta * delta * ((double)count * other.count / total);
+        mean += delta * other.count / total;
+        count = total;
+    }
+
+    public long getCount()
+    {
+        return count;
+    }
+
+    public double getMean()
+    {
+        return mean;
+    }
+
+    public double getSumOfSquares()
+    {
+        return m2;
+    }
+
+    /**
+     *Gets the sample variance.
+     *pre: none
+     *post: returns the variance, 0 with fewer than two values
+     */
+    public double getVariance()
+    {
+        return (count > 1) ? m2 / (count - 1) : 0;
+    }
+
+    public double getStandardDeviation()
+    {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     *Gets the standard error of the mean.
+     *pre: none
+     *post: returns the standard deviation over the square root of the count
+     */
+    public double getStandardError()
+    {
+        return (count > 0) ? Math.sqrt(getVariance() / count) : 0;
+    }
+}
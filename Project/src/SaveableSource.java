@@ -0,0 +1,20 @@
+/**
+ * A RandomSource whose state can be saved and restored, so a checkpointed run can continue the
+ * same stream. Tasks that save their progress only accept decks with such a generator.
+ */
+public interface SaveableSource
+{
+    /**
+     *Gets the state of the generator, to save it.
+     *pre: none
+     *post: returns a copy of the state
+     */
+    long[] getState();
+
+    /**
+     *Sets the state of the generator, to continue a saved one.
+     *pre: state was returned by getState of a generator of the same class
+     *post: the generator continues the saved stream
+     */
+    void setState(long[] state);
+}
@@ -0,0 +1,320 @@
+import java.io.File;
+
+/**
+ * The settings of one SimulationEngine run. Every field is final and the payout table is copied
+ * in and out, so a configuration can be shared between threads and engines. Configurations are
+ * made with a Builder, which checks the settings when it builds.
+ */
+public final class SimulationConfig
+{
+    // NOTE: The sampling is split into this many independently seeded shards,
+    // whatever the number of cores, so seeded runs replay on any machine.
+    public static final int defaultNumShards = 64;
+
+    private static final int defaultNumIter = 3500000;
+    private static final int defaultNumPlays = 7;
+    private static final int defaultProgressSeconds = 10;
+
+    private final int numIter;
+    private final int numPlays;
+    private final Paytable paytable;
+    private final int bet;
+    private final long seed;
+    private final int parallelism;
+    private final int numShards;
+    private final boolean exhaustive;
+    private final boolean exact;
+    private final boolean adaptive;
+    private final boolean importance;
+    private final Utility utility;
+    private final File table;
+    private final int progressSeconds;
+
+    /**
+     * Collects the settings of a configuration. Unset settings keep their defaults: 3,500,000
+     * iterations and 7 plays, the Jacks or Better paytable at its maximum bet, a seed from the
+     * clock, a thread per core, defaultNumShards shards, plain sampling by expected payout with
+     * no strategy table, and a progress line every 10 seconds.
+     */
+    public static class Builder
+    {
+        private int numIter = defaultNumIter;
+        private int numPlays = defaultNumPlays;
+        private Paytable paytable = Paytable.JACKS_OR_BETTER;
+        private Integer bet = null;
+        private long seed = System.nanoTime();
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private int numShards = defaultNumShards;
+        private boolean exhaustive = false;
+        private boolean exact = false;
+        private boolean adaptive = false;
+        private boolean importance = false;
+        private Utility utility = null;
+        private File table = null;
+        private int progressSeconds = defaultProgressSeconds;
+
+        public Builder numIter(int numIter)
+        {
+            this.numIter = numIter;
+            return this;
+        }
+
+        public Builder numPlays(int numPlays)
+        {
+            this.numPlays = numPlays;
+            return this;
+        }
+
+        public Builder paytable(Paytable paytable)
+        {
+            this.paytable = paytable;
+            return this;
+        }
+
+        // NOTE: To qualify for the 800 to 1 payout on a royal flush, the player
+        // must bet five coins; the bet is the paytable's maximum unless set.
+        public Builder bet(int bet)
+        {
+            this.bet = bet;
+            return this;
+        }
+
+        public Builder seed(long seed)
+        {
+            this.seed = seed;
+            return this;
+        }
+
+        public Builder parallelism(int parallelism)
+        {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder numShards(int numShards)
+        {
+            this.numShards = numShards;
+            return this;
+        }
+
+        /**
+         *Sets whether every hand is ranked once instead of sampling.
+         *pre: none
+         *post: if exhaustive, numIter is Poker.numHands
+         */
+        public Builder exhaustive(boolean exhaustive)
+        {
+            this.exhaustive = exhaustive;
+            if(exhaustive)
+                this.numIter = Poker.numHands;
+            return this;
+        }
+
+        public Builder exact(boolean exact)
+        {
+            this.exact = exact;
+            return this;
+        }
+
+        public Builder adaptive(boolean adaptive)
+        {
+            this.adaptive = adaptive;
+            return this;
+        }
+
+        public Builder importance(boolean importance)
+        {
+            this.importance = importance;
+            return this;
+        }
+
+        // NOTE: null holds by expected payout.
+        public Builder utility(Utility utility)
+        {
+            this.utility = utility;
+            return this;
+        }
+
+        /**
+         *Sets the file of the strategy table the plays hold by, built by StrategyTable for the
+         *paytable and bet.
+         *pre: none
+         *post: the plays look their holds up in table, or solve them if table is null
+         */
+        public Builder table(File table)
+        {
+            this.table = table;
+            return this;
+        }
+
+        // NOTE: The run's counters are also shown over JMX; the progress line is
+        // printed every progressSeconds (0 for never).
+        public Builder progressSeconds(int progressSeconds)
+        {
+            this.progressSeconds = progressSeconds;
+            return this;
+        }
+
+        /**
+         *Builds the configuration.
+         *pre: none
+         *post: returns the configuration, or throws IllegalArgumentException if a setting is
+         *      out of range
+         */
+        public SimulationConfig build()
+        {
+            return new SimulationConfig(this);
+        }
+    }
+
+    private SimulationConfig(Builder builder)
+    {
+        if(builder.paytable == null)
+            throw new IllegalArgumentException("No paytable");
+
+        this.numIter = builder.numIter;
+        this.numPlays = builder.numPlays;
+        this.paytable = builder.paytable;
+        this.bet = (builder.bet != null) ? builder.bet : paytable.getMaxBet();
+        this.seed = builder.seed;
+        this.parallelism = builder.parallelism;
+        this.numShards = builder.numShards;
+        this.exhaustive = builder.exhaustive;
+        this.exact = builder.exact;
+        this.adaptive = builder.adaptive;
+        this.importance = builder.importance;
+        this.utility = builder.utility;
+        this.table = builder.table;
+        this.progressSeconds = builder.progressSeconds;
+
+        // NOTE: Sampling no hands would report 0/0 for every rank.
+        if(numIter <= 0)
+            throw new IllegalArgumentException("numIter " + numIter + " <= 0");
+        if(numPlays < 0)
+            throw new IllegalArgumentException("numPlays " + numPlays + " < 0");
+        if(bet < 1 || bet > paytable.getMaxBet())
+            throw new IllegalArgumentException("bet " + bet + " is not between 1 and "
+                                               + paytable.getMaxBet());
+        if(parallelism <= 0)
+            throw new IllegalArgumentException("parallelism " + parallelism + " <= 0");
+        if(numShards <= 0)
+            throw new IllegalArgumentException("numShards " + numShards + " <= 0");
+        if(table != null && !table.isFile())
+            throw new IllegalArgumentException("No strategy table " + table + "; build it with "
+                                               + "\"java StrategyTable\"");
+        if(table != null && (adaptive || utility != null))
+            throw new IllegalArgumentException("A strategy table holds by expected payout; "
+                                               + "it cannot be combined with adaptive "
+                                               + "sampling or a utility");
+        if(progressSeconds < 0)
+            throw new IllegalArgumentException("progressSeconds " + progressSeconds + " < 0");
+        if(exhaustive && numIter != Poker.numHands)
+            throw new IllegalArgumentException("An exhaustive run ranks all " + Poker.numHands
+                                               + " hands, not " + numIter);
+    }
+
+    public int getNumIter()
+    {
+        return numIter;
+    }
+
+    public int getNumPlays()
+    {
+        return numPlays;
+    }
+
+    public Paytable getPaytable()
+    {
+        return paytable;
+    }
+
+    public int getBet()
+    {
+        return bet;
+    }
+
+    /**
+     *Gets the payouts of the bet.
+     *pre: none
+     *post: returns a new array of the payouts per coin, indexed by rank
+     */
+    public int[] getPayoutTable()
+    {
+        return paytable.getPayouts(bet);
+    }
+
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    /**
+     *Gets the number of worker threads of an engine's own pool.
+     *pre: none
+     *post: returns the parallelism; results do not depend on it (see getNumShards)
+     */
+    public int getParallelism()
+    {
+        return parallelism;
+    }
+
+    /**
+     *Gets the number of independently seeded shards the sampling is split into.
+     *pre: none
+     *post: returns the number of shards, which with the seed fixes the results
+     */
+    public int getNumShards()
+    {
+        return numShards;
+    }
+
+    public boolean isExhaustive()
+    {
+        return exhaustive;
+    }
+
+    public boolean isExact()
+    {
+        return exact;
+    }
+
+    public boolean isAdaptive()
+    {
+        return adaptive;
+    }
+
+    public boolean isImportance()
+    {
+        return importance;
+    }
+
+    /**
+     *Gets the utility holds are chosen by.
+     *pre: none
+     *post: returns the utility, or null to hold by expected payout
+     */
+    public Utility getUtility()
+    {
+        return utility;
+    }
+
+    /**
+     *Gets the file of the strategy table.
+     *pre: none
+     *post: returns the table file, or null if holds are solved instead
+     */
+    public File getTable()
+    {
+        return table;
+    }
+
+    /**
+     *Gets the interval of the progress line.
+     *pre: none
+     *post: returns the seconds between progress lines, or 0 for none
+     */
+    public int getProgressSeconds()
+    {
+        return progressSeconds;
+    }
+}
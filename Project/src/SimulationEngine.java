@@ -0,0 +1,481 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * One run of the Poker simulation: the hand distribution of numIter sampled hands (or of every
+ * hand) against the exact one, optionally importance sampling, and numPlays dealt hands held by
+ * a strategy. The engine owns its deck, player, winnings, strategy table or cache, and metrics,
+ * and reads its settings from an immutable SimulationConfig, so any number of engines can run in
+ * one JVM at once, each printing to its own stream. Sampling runs on a ForkJoinPool that engines
+ * may share; since the sampling is split into seeded shards, the output only depends on the
+ * configuration, not on the pool or on the other engines. An engine made with a pool of its
+ * own shuts it down when closed; a shared pool is left to its owner.
+ */
+public class SimulationEngine implements AutoCloseable
+{
+    private final SimulationConfig config;
+    private final int[] payoutTable;
+    private final ForkJoinPool pool;
+    private final boolean ownsPool;
+    private final Deck deck;
+    private final Player player;
+    private final Metrics metrics;
+    private final StrategyTable table;
+    private final HoldCache cache;
+
+    private float winnings;
+    private int[] counts;
+
+    /**
+     *Constructor method for an engine with a pool of its own.
+     *pre: the engine is closed once it is no longer used
+     *post: variables are initialised; the pool has config.getParallelism() threads
+     */
+    public SimulationEngine(SimulationConfig config) throws IOException
+    {
+        this(config, new Metrics("Simulation-" + config.getSeed()), null);
+    }
+
+    /**
+     *Constructor method for an engine sampling on a shared pool.
+     *pre: metrics is not shared with another engine that is running
+     *post: variables are initialised, nothing has been sampled; closing the engine leaves the
+     *      pool running
+     */
+    public SimulationEngine(SimulationConfig config, ForkJoinPool pool, Metrics metrics)
+        throws IOException
+    {
+        this(config, metrics, pool);
+    }
+
+    // NOTE: Makes its own pool when pool is null, last, so a table that cannot
+    // be opened leaves no threads behind.
+    private SimulationEngine(SimulationConfig config, Metrics metrics, ForkJoinPool pool)
+        throws IOException
+    {
+        this.config = config;
+        this.payoutTable = config.getPayoutTable();
+        this.deck = new Deck(new Xoroshiro128PlusPlus(config.getSeed()));
+        this.player = new Player();
+        this.metrics = metrics;
+        this.winnings = 0;
+
+        // NOTE: Built offline by StrategyTable; used instead of solving when asked for.
+        this.table = (config.getTable() != null)
+            ? StrategyTable.get(config.getPaytable(), config.getBet(), config.getTable()) : null;
+        this.cache = (table == null && config.isExact()) ? new HoldCache(payoutTable) : null;
+
+        this.ownsPool = (pool == null);
+        this.pool = ownsPool ? new ForkJoinPool(config.getParallelism()) : pool;
+    }
+
+    /**
+     *Shuts down the engine's own pool.
+     *pre: the engine is not running
+     *post: the pool's threads end if the engine made it; a shared pool is untouched
+     */
+    @Override
+    public void close()
+    {
+        if(ownsPool)
+            pool.shutdown();
+    }
+
+    public SimulationConfig getConfig()
+    {
+        return config;
+    }
+
+    public Metrics getMetrics()
+    {
+        return metrics;
+    }
+
+    /**
+     *Gets the hand distribution of the run.
+     *pre: run has finished
+     *post: returns a copy of the number of hands of each rank
+     */
+    public int[] getCounts()
+    {
+        return counts.clone();
+    }
+
+    /**
+     *Gets the expected winnings of the plays.
+     *pre: none
+     *post: returns the sum of the expected payouts less the coins bet, per coin
+     */
+    public float getWinnings()
+    {
+        return winnings;
+    }
+
+    /**
+     *Runs the simulation.
+     *pre: the engine has not run
+     *post: the report is printed to out
+     */
+    public void run(PrintStream out) throws IOException
+    {
+        run(out, null);
+    }
+
+    /**
+     *Runs the simulation, saving its progress.
+     *pre: the engine has not run, checkpoint is null or was made for this configuration
+     *post: the report is printed to out, including whatever was printed before the checkpoint
+     */
+    public void run(PrintStream out, Checkpoint checkpoint) throws IOException
+    {
+        // NOTE: Pass the printed seed back in to replay a run exactly.
+        out.println("\nSeed: " + config.getSeed());
+        if(table != null)
+            out.println("Strategy table: " + config.getTable());
+
+        counts = config.isExhaustive() ? DistributionTask.distribution(pool)
+                                       : observed(checkpoint);
+
+        handDistribution(out, counts);
+
+        if(config.isExhaustive()) {
+            out.println("\nExact check:");
+            out.format("%n%46s: %d %n%n", "Mismatches",
+                       DistributionTask.printMismatches(out, counts));
+        } else {
+            chiSquareTest(out, counts, expected());
+        }
+
+        // NOTE: The rare ranks need billions of plain samples; weighting the
+        // samples towards them measures them with numIter.
+        if(config.isImportance() && !config.isExhaustive())
+            ImportanceTask.printEstimates(out, importance(checkpoint), config.getNumIter());
+
+        plays(out, checkpoint);
+
+        if(cache != null)
+            out.println("Hold cache: " + cache);
+    }
+
+    // NOTE: The shard decks are split off deck even when the counts were saved,
+    // so deck continues as it would have.
+    private int[] observed(Checkpoint checkpoint) throws IOException
+    {
+        ObservedTask task = ObservedTask.create(deck, config.getNumIter(), config.getNumShards(),
+                                                checkpoint, metrics);
+        DataInputStream saved = (checkpoint != null) ? checkpoint.get(ObservedTask.phase) : null;
+        int[] counts = new int[Poker.numRanks];
+
+        if(saved != null) {
+            for(int i = 0; i < counts.length; ++i)
+                counts[i] = saved.readInt();
+            return counts;
+        }
+
+        counts = pool.invoke(task);
+
+        if(checkpoint != null) {
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(result);
+            for(int count : counts)
+                out.writeInt(count);
+            checkpoint.finish(ObservedTask.phase, result);
+        }
+
+        return counts;
+    }
+
+    private double[][] importance(Checkpoint checkpoint) throws IOException
+    {
+        ImportanceTask task = ImportanceTask.create(deck, config.getNumIter(),
+                                                    config.getNumShards(), checkpoint, metrics);
+        DataInputStream saved = (checkpoint != null) ? checkpoint.get(ImportanceTask.phase) : null;
+        double[][] sums = new double[2][Poker.numRanks];
+
+        if(saved != null) {
+            for(double[] sum : sums)
+                for(int i = 0; i < sum.length; ++i)
+                    sum[i] = saved.readDouble();
+            return sums;
+        }
+
+        sums = pool.invoke(task);
+
+        if(checkpoint != null) {
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(result);
+            for(double[] sum : sums)
+                for(double x : sum)
+                    out.writeDouble(x);
+            checkpoint.finish(ImportanceTask.phase, result);
+        }
+
+        return sums;
+    }
+
+    // NOTE: After each play its text is appended to the checkpoint's "plays"
+    // log, and the number of plays, the winnings, the deck and the length of
+    // the log are saved, so a resumed run reprints the log and deals the next.
+    private void plays(PrintStream out, Checkpoint checkpoint) throws IOException
+    {
+        DataInputStream saved = (checkpoint != null) ? checkpoint.get("plays") : null;
+        int first = 0;
+        long printed = 0;
+
+        if(saved != null) {
+            first = saved.readInt();
+            winnings = saved.readFloat();
+            deck.readState(saved);
+            printed = saved.readLong();
+        }
+
+        // NOTE: Also drops plays logged after the checkpoint was last written.
+        if(checkpoint != null)
+            checkpoint.copyLog("plays", printed, out);
+
+        for(int i = first; i < config.getNumPlays(); ++i) {
+            ByteArrayOutputStream text = new ByteArrayOutputStream();
+            playthrough(new PrintStream(text, true));
+            text.writeTo(out);
+
+            if(checkpoint != null) {
+                printed = checkpoint.append("plays", text.toByteArray());
+
+                ByteArrayOutputStream state = new ByteArrayOutputStream();
+                DataOutputStream data = new DataOutputStream(state);
+                data.writeInt(i + 1);
+                data.writeFloat(winnings);
+                deck.writeState(data);
+                data.writeLong(printed);
+                checkpoint.put("plays", state);
+            }
+        }
+    }
+
+    private float[] expected()
+    {
+        float[] counts = new float[Poker.numRanks];
+
+        for(int i = 0; i < Poker.numRanks; ++i)
+            counts[i] = (float)config.getNumIter()*Poker.preDrawFrequency(i) / Poker.numHands;
+
+        return counts;
+    }
+
+    private void handDistribution(PrintStream out, int[] counts)
+    {
+        out.println("\nHand distribution:\n");
+
+        for(int i = Poker.numRanks-1; i >= 0; --i)
+            out.format("%17s: %9.6f %% %n", Poker.handName(i),
+                       100.0*counts[i] / config.getNumIter());
+    }
+
+    private static void chiSquareTest(PrintStream out, int[] observed, float[] expected)
+    {
+        float result = 0;
+        float deviation = 0;
+
+        out.println("\nChi-square test:");
+        out.format("%n%27s\t%s\t%s %n", "Observed", "Expected", "Deviation");
+
+        for(int i = Poker.numRanks-1; i >= 0; --i) {
+            deviation = (float)Math.pow(observed[i] - expected[i], 2) / expected[i];
+            result += deviation;
+            out.format("%17s: %-7d\t%-10.2f\t%-5.3f %n",
+                       Poker.handName(i), observed[i], expected[i], deviation);
+        }
+
+        out.format("%n%46s: %5.3f %n%n", "Total", result);
+    }
+
+    private void playthrough(PrintStream out)
+    {
+        player.setHand(deck.deal(Poker.handSize));
+
+        out.format("%17s: ", "Hand dealt");
+        Poker.printHand(out, player.getHand());
+
+        long start = System.nanoTime();
+        long evaluations = metrics.getEvaluations();
+
+        HoldChoice bestChoice = (config.getUtility() != null)
+                                    ? utilityStrategy(player, deck, config.getUtility())
+                              : (table != null) ? tableStrategy(player, deck, table)
+                              : (cache != null) ? cachedStrategy(player, cache)
+                              : config.isExact() ? exactStrategy(player, deck)
+                              : optimalStrategy(player, deck);
+
+        // NOTE: Only the sampling strategies evaluate hands, so the samples of
+        // a decision are the evaluations it added.
+        metrics.addHands(1);
+        metrics.recordDecision(System.nanoTime() - start, metrics.getEvaluations() - evaluations);
+        winnings += (bestChoice.getValue() - 1);
+
+        out.format("%17s: ", "Optimal strategy");
+        Poker.printHand(out, bestChoice.getHand());
+        out.format("%17s: %4.2f (%4.2f) %n", "Expected payout",
+                   bestChoice.getValue(), winnings);
+
+        if(bestChoice.hasProbabilities())
+            out.format("%17s: %4.2f %n", "Std. deviation",
+                       Math.sqrt(bestChoice.getVariance(payoutTable)));
+
+        out.println();
+
+        deck.restore();
+    }
+
+    /**
+     *Chooses a hold by sampling the draws of every hold on the engine's pool.
+     *pre: player holds 5 cards dealt from deck
+     *post: returns the hold with the best sampled expected payout
+     */
+    public HoldChoice optimalStrategy(Player player, Deck deck)
+    {
+        if(config.isAdaptive())
+            return adaptiveStrategy(player, deck);
+
+        int bestChoice = 0;
+        int numChoices = 32;
+        int sampleSize = 766969;
+
+        // NOTE: Massage these parameters to adjust the speed/accuracy ratio.
+        // Each entry corresponds to the number of cards held. E.g., if 4 cards
+        // are held, sample 752 times.
+        int[] sampleSizes = { sampleSize, 356730, 64860, 8648, 752, 1 };
+
+        float[] expectedPayouts = new float[numChoices];
+
+        ArrayList<ArrayList<Card>> cardsHeld = new ArrayList<ArrayList<Card>>(numChoices);
+        final ArrayList<HoldTask> tasks = new ArrayList<HoldTask>(numChoices);
+
+        for(int i = 0; i < (1 << Poker.handSize); ++i) {
+            ArrayList<Card> hand = new ArrayList<Card>(Poker.handSize);
+
+            for(int j = 0; j < Poker.handSize; j++)
+                if(((i >> j) & 1) == 1)
+                    hand.add(player.getCard(j));
+
+            cardsHeld.add(hand);
+
+            // NOTE: Each choice samples its own copy of the deck on its own
+            // random stream; work stealing evens out the uneven sample sizes.
+            tasks.add(new HoldTask(HandBits.of(hand), deck.splitRemaining(),
+                                   sampleSizes[hand.size()], expectedPayouts, i));
+        }
+
+        pool.invoke(new RecursiveAction() {
+
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+
+        });
+
+        for(int i = 0; i < numChoices; ++i)
+            if(expectedPayouts[i] > expectedPayouts[bestChoice])
+                bestChoice = i;
+
+        return new HoldChoice(cardsHeld.get(bestChoice), bestChoice,
+                              expectedPayouts[bestChoice]);
+    }
+
+    @SuppressWarnings("serial")
+    private class HoldTask extends RecursiveAction {
+        private final HandBits hand;
+        private final Deck deck;
+        private final int sampleSize;
+        private final float[] expectedPayouts;
+        private final int choice;
+
+        private HoldTask(HandBits hand, Deck deck, int sampleSize,
+                         float[] expectedPayouts, int choice) {
+            this.hand = hand;
+            this.deck = deck;
+            this.sampleSize = sampleSize;
+            this.expectedPayouts = expectedPayouts;
+            this.choice = choice;
+        }
+
+        @Override
+        protected void compute() {
+            int numCardsHeld = hand.size();
+            long payout = 0;
+
+            for(int j = 0; j < sampleSize; ++j) {
+                deck.sample(hand, Poker.handSize - numCardsHeld);
+                payout += payoutTable[HandEvaluator.rank(hand)];
+                hand.truncate(numCardsHeld);
+            }
+
+            expectedPayouts[choice] = (float)payout / sampleSize;
+            metrics.addEvaluations(sampleSize);
+        }
+    }
+
+    // NOTE: Samples until the best hold is known instead of a fixed number of
+    // times per hold; see AdaptiveStrategy.
+    public HoldChoice adaptiveStrategy(Player player, Deck deck)
+    {
+        ArrayList<Card> dealt = player.getHand();
+        AdaptiveStrategy.Result result =
+            new AdaptiveStrategy(payoutTable).solve(HandBits.of(dealt), deck);
+        int bestChoice = result.getBestHold();
+
+        metrics.addEvaluations(result.getNumEvaluations());
+
+        return new HoldChoice(ExactStrategy.cardsHeld(dealt, bestChoice), bestChoice,
+                              result.getExpectedPayouts()[bestChoice]);
+    }
+
+    // NOTE: Enumerates every draw instead of sampling; does not modify the
+    // player or the deck.
+    public HoldChoice exactStrategy(Player player, Deck deck)
+    {
+        return utilityStrategy(player, deck, Utility.expectedPayout());
+    }
+
+    // NOTE: Solves every hold's outcome distribution exactly, then picks the
+    // hold the utility values most.
+    public HoldChoice utilityStrategy(Player player, Deck deck, Utility utility)
+    {
+        HoldOutcomes outcomes = new HoldOutcomes(player.getHand(), deck.getCards());
+
+        return outcomes.choice(outcomes.best(utility, payoutTable), payoutTable);
+    }
+
+    // NOTE: The table only answers for a fresh deck; any other deck is solved
+    // exactly.
+    public HoldChoice tableStrategy(Player player, Deck deck, StrategyTable table)
+    {
+        ArrayList<Card> dealt = player.getHand();
+
+        if(!StrategyTable.isFreshDeal(dealt.size(), deck))
+            return exactStrategy(player, deck);
+
+        int bestChoice = table.bestHold(dealt);
+
+        return new HoldChoice(ExactStrategy.cardsHeld(dealt, bestChoice), bestChoice,
+                              table.expectedPayout(dealt, bestChoice));
+    }
+
+    // NOTE: Assumes only the dealt cards are missing from the deck, as in
+    // playthrough.
+    public HoldChoice cachedStrategy(Player player, HoldCache cache)
+    {
+        ArrayList<Card> dealt = player.getHand();
+        float[] expectedPayouts = cache.expectedPayouts(dealt);
+        int bestChoice = ExactStrategy.bestChoice(expectedPayouts);
+
+        return new HoldChoice(ExactStrategy.cardsHeld(dealt, bestChoice), bestChoice,
+                              expectedPayouts[bestChoice]);
+    }
+}
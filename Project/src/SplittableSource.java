@@ -0,0 +1,37 @@
+import java.util.SplittableRandom;
+
+/**
+ * RandomSource backed by java.util.SplittableRandom.
+ */
+public class SplittableSource extends RandomSource
+{
+    private final SplittableRandom random;
+
+    public SplittableSource(long seed)
+    {
+        this(new SplittableRandom(seed));
+    }
+
+    private SplittableSource(SplittableRandom random)
+    {
+        this.random = random;
+    }
+
+    @Override
+    public long nextLong()
+    {
+        return random.nextLong();
+    }
+
+    @Override
+    public int nextInt(int bound)
+    {
+        return random.nextInt(bound);
+    }
+
+    @Override
+    public RandomSource split()
+    {
+        return new SplittableSource(random.split());
+    }
+}
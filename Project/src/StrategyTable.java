@@ -0,0 +1,356 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Precomputed optimal strategy for every deal of a paytable. The table is built offline by
+ * solving the canonical hand of every suit isomorphic class exactly, and is memory-mapped when
+ * opened, so a lookup is a canonicalization and a read.
+ *
+ * File layout: a header (magic, version, number of ranks, the paytable, number of classes)
+ * followed by one record per class, the best hold as an int then the expected payout of all 32
+ * holds as floats. Holds in a record are over the canonical hand's cards in increasing order.
+ *
+ * Every record assumes the other 47 cards are left to draw, so the table only answers for a
+ * hand dealt from a fresh deck; chooseHold solves any other deck exactly instead.
+ *
+ * Usage: java StrategyTable [paytable file|default] [bet] [output file]
+ */
+public class StrategyTable implements HoldStrategy
+{
+    public static final int magic = 0x56505354; // "VPST"
+    public static final int version = 1;
+    public static final int recordSize = 4 + 4 * ExactStrategy.numChoices;
+
+    private static final ConcurrentHashMap<List<Integer>, StrategyTable> tables =
+        new ConcurrentHashMap<List<Integer>, StrategyTable>();
+
+    private final int[] payoutTable;
+    private final int headerSize;
+    private final MappedByteBuffer records;
+
+    private StrategyTable(int[] payoutTable, int headerSize, MappedByteBuffer records)
+    {
+        this.payoutTable = payoutTable;
+        this.headerSize = headerSize;
+        this.records = records;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        Paytable paytable = (args.length > 0 && !args[0].equals("default"))
+            ? Paytable.load(new File(args[0])) : Paytable.JACKS_OR_BETTER;
+        int bet = (args.length > 1) ? Integer.parseInt(args[1]) : paytable.getMaxBet();
+        int[] payoutTable = paytable.getPayouts(bet);
+        File file = (args.length > 2) ? new File(args[2]) : new File(fileName(payoutTable));
+
+        long start = System.currentTimeMillis();
+        build(payoutTable, file);
+
+        System.out.format("Wrote %d classes to %s in %d s %n", CanonicalHand.numClasses(),
+                          file, (System.currentTimeMillis() - start) / 1000);
+    }
+
+    /**
+     *Gets the default file name of the table of a paytable.
+     *pre: none
+     *post: returns a name spelling out every payout, e.g. strategy-0-1-2-3-4-6-9-25-50-800.bin
+     */
+    public static String fileName(int[] payoutTable)
+    {
+        StringBuilder name = new StringBuilder("strategy");
+
+        for(int payout : payoutTable)
+            name.append('-').append(payout);
+
+        return name.append(".bin").toString();
+    }
+
+    /**
+     *Gets the table of a paytable at a bet, opening its file the first time. Tables are kept
+     *by their per coin payouts, so every machine configuration with the same payouts shares one.
+     *pre: the table file was built, 1 <= bet <= paytable.getMaxBet()
+     *post: returns the table, or throws IOException if it cannot be opened
+     */
+    public static StrategyTable get(Paytable paytable, int bet) throws IOException
+    {
+        return get(paytable, bet, new File(fileName(paytable.getPayouts(bet))));
+    }
+
+    /**
+     *Gets the table of a paytable at a bet, opening file if no table of these payouts is open.
+     *pre: 1 <= bet <= paytable.getMaxBet()
+     *post: returns the table, or throws IOException if file cannot be opened or was built for
+     *      other payouts
+     */
+    public static StrategyTable get(Paytable paytable, int bet, File file) throws IOException
+    {
+        int[] payoutTable = paytable.getPayouts(bet);
+        List<Integer> key = key(payoutTable);
+        StrategyTable table = tables.get(key);
+
+        if(table == null) {
+            table = open(file);
+
+            if(!Arrays.equals(table.payoutTable, payoutTable))
+                throw new IOException(file + " was built for another paytable");
+
+            StrategyTable previous = tables.putIfAbsent(key, table);
+            if(previous != null)
+                table = previous;
+        }
+
+        return table;
+    }
+
+    // The payouts themselves, so two paytables only share a table if they pay the same
+    private static List<Integer> key(int[] payoutTable)
+    {
+        Integer[] payouts = new Integer[payoutTable.length];
+
+        for(int i = 0; i < payouts.length; ++i)
+            payouts[i] = payoutTable[i];
+
+        return Arrays.asList(payouts);
+    }
+
+    /**
+     *Solves every class of deals and writes the table.
+     *pre: payoutTable has an entry per rank
+     *post: file holds the table for payoutTable
+     */
+    public static void build(final int[] payoutTable, File file)
+        throws IOException, InterruptedException
+    {
+        final int numClasses = CanonicalHand.numClasses();
+        final int[] bestHolds = new int[numClasses];
+        final float[][] expectedPayouts = new float[numClasses][];
+        final AtomicInteger next = new AtomicInteger();
+
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+
+        for(int t = 0; t < numThreads; ++t)
+            pool.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    int[] hand = new int[CanonicalHand.handSize];
+                    int handClass;
+
+                    while((handClass = next.getAndIncrement()) < numClasses) {
+                        CanonicalHand.representative(handClass, hand);
+
+                        int[][] counts = ExactStrategy.holdCounts(hand);
+                        expectedPayouts[handClass] = ExactStrategy.expectedPayouts(counts, payoutTable);
+                        bestHolds[handClass] = ExactStrategy.bestChoice(expectedPayouts[handClass]);
+                    }
+                }
+
+            });
+
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+
+        write(payoutTable, bestHolds, expectedPayouts, file);
+    }
+
+    /**
+     *Writes a table from solved classes.
+     *pre: bestHolds and expectedPayouts have an entry per class, holds over the canonical hands
+     *post: file holds the table for payoutTable
+     */
+    public static void write(int[] payoutTable, int[] bestHolds, float[][] expectedPayouts, File file)
+        throws IOException
+    {
+        int numClasses = bestHolds.length;
+        RandomAccessFile out = new RandomAccessFile(file, "rw");
+        try {
+            out.setLength(0);
+            FileChannel channel = out.getChannel();
+
+            ByteBuffer header = ByteBuffer.allocate(headerSize(payoutTable.length));
+            header.putInt(magic).putInt(version).putInt(payoutTable.length);
+            for(int payout : payoutTable)
+                header.putInt(payout);
+            header.putInt(numClasses);
+            header.flip();
+            channel.write(header);
+
+            ByteBuffer record = ByteBuffer.allocate(recordSize * 1024);
+            for(int i = 0; i < numClasses; ++i) {
+                if(record.remaining() < recordSize) {
+                    record.flip();
+                    channel.write(record);
+                    record.clear();
+                }
+
+                record.putInt(bestHolds[i]);
+                for(float value : expectedPayouts[i])
+                    record.putFloat(value);
+            }
+            record.flip();
+            channel.write(record);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     *Memory-maps a table.
+     *pre: file was written by build
+     *post: returns the table, or throws IOException if file is not a strategy table
+     */
+    public static StrategyTable open(File file) throws IOException
+    {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = in.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if(buffer.getInt(0) != magic || buffer.getInt(4) != version)
+                throw new IOException(file + " is not a strategy table");
+
+            int[] payoutTable = new int[buffer.getInt(8)];
+            for(int i = 0; i < payoutTable.length; ++i)
+                payoutTable[i] = buffer.getInt(12 + 4 * i);
+
+            int headerSize = headerSize(payoutTable.length);
+            int numClasses = buffer.getInt(headerSize - 4);
+
+            if(numClasses != CanonicalHand.numClasses()
+               || buffer.capacity() != headerSize + (long)numClasses * recordSize)
+                throw new IOException(file + " is truncated");
+
+            return new StrategyTable(payoutTable, headerSize, buffer);
+        } finally {
+            in.close(); // the mapping stays valid after the channel is closed
+        }
+    }
+
+    /**
+     *Gets the paytable the table was built for.
+     *pre: none
+     *post: returns a copy of the paytable
+     */
+    public int[] getPayoutTable()
+    {
+        return payoutTable.clone();
+    }
+
+    /**
+     *Gets the optimal hold of a dealt hand when the other 47 cards are left to draw.
+     *pre: hand contains 5 cards
+     *post: returns the best hold, bit j set when card j of hand is held
+     */
+    public int bestHold(ArrayList<Card> hand)
+    {
+        int[] canonical = new int[CanonicalHand.handSize];
+        int offset = recordOffset(hand, canonical);
+
+        return CanonicalHand.fromCanonicalHold(records.getInt(offset), canonical);
+    }
+
+    /**
+     *Gets the optimal hold of a dealt hand of card indices when the other 47 cards are left to
+     *draw.
+     *pre: cards holds 5 distinct card indices
+     *post: returns the best hold, bit j set when cards[j] is held
+     */
+    public int bestHold(int[] cards)
+    {
+        int[] canonical = new int[CanonicalHand.handSize];
+        int offset = recordOffset(cards, canonical);
+
+        return CanonicalHand.fromCanonicalHold(records.getInt(offset), canonical);
+    }
+
+    /**
+     *Chooses a hold, from the table when deck holds every card but the dealt ones and by
+     *enumerating the draws of deck otherwise.
+     *pre: dealt holds 5 cards, deck holds the cards left to draw
+     *post: returns the best hold, bit j set when card j of dealt is held
+     */
+    @Override
+    public int chooseHold(HandBits dealt, Deck deck)
+    {
+        if(isFreshDeal(dealt.size(), deck))
+            return bestHold(dealt.getCards());
+
+        int[][] counts = ExactStrategy.holdCounts(dealt.toCards(), deck.getCards());
+        return ExactStrategy.bestChoice(ExactStrategy.expectedPayouts(counts, payoutTable));
+    }
+
+    /**
+     *Checks whether the table answers for a deal.
+     *pre: numDealt cards were dealt, deck holds the cards left to draw
+     *post: returns true if deck holds every card but the dealt ones
+     */
+    public static boolean isFreshDeal(int numDealt, Deck deck)
+    {
+        return numDealt + deck.getCurrentDeckSize() == Card.NUM_CARDS;
+    }
+
+    /**
+     *Gets the expected payout of a hold when the other 47 cards are left to draw.
+     *pre: hand contains 5 cards, 0 <= hold < 32
+     *post: returns the exact expected payout of holding the cards of hand whose bit is set
+     */
+    public float expectedPayout(ArrayList<Card> hand, int hold)
+    {
+        int[] canonical = new int[CanonicalHand.handSize];
+        int offset = recordOffset(hand, canonical);
+        int canonicalHold = CanonicalHand.toCanonicalHold(hold, canonical);
+
+        return records.getFloat(offset + 4 + 4 * canonicalHold);
+    }
+
+    /**
+     *Gets the expected payout of every hold when the other 47 cards are left to draw.
+     *pre: hand contains 5 cards
+     *post: returns the expected payouts indexed by hold over the cards of hand
+     */
+    public float[] expectedPayouts(ArrayList<Card> hand)
+    {
+        int[] canonical = new int[CanonicalHand.handSize];
+        int offset = recordOffset(hand, canonical);
+        float[] expectedPayouts = new float[ExactStrategy.numChoices];
+
+        for(int hold = 0; hold < expectedPayouts.length; ++hold)
+            expectedPayouts[hold] = records.getFloat(offset + 4
+                + 4 * CanonicalHand.toCanonicalHold(hold, canonical));
+
+        return expectedPayouts;
+    }
+
+    private int recordOffset(ArrayList<Card> hand, int[] canonical)
+    {
+        int[] cards = new int[CanonicalHand.handSize];
+
+        for(int i = 0; i < cards.length; ++i)
+            cards[i] = hand.get(i).getIndex();
+
+        return recordOffset(cards, canonical);
+    }
+
+    private int recordOffset(int[] cards, int[] canonical)
+    {
+        return headerSize + CanonicalHand.classOf(cards, canonical) * recordSize;
+    }
+
+    private static int headerSize(int numRanks)
+    {
+        return 4 * (4 + numRanks);
+    }
+}
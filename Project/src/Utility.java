@@ -0,0 +1,137 @@
+/**
+ * How much a player values the outcome distribution of a hold, for choosing holds by something
+ * other than their expected payout. Payouts are per coin and include the returned bet, so a
+ * hand paying 0 loses the coin bet.
+ */
+public abstract class Utility
+{
+    /**
+     *Values an outcome distribution.
+     *pre: probabilities and payoutTable have an entry per rank
+     *post: returns the value of playing the distribution; higher is better
+     */
+    public abstract double value(double[] probabilities, int[] payoutTable);
+
+    /**
+     *Gets the utility of the expected payout, which makes the usual optimal strategy.
+     *pre: none
+     *post: returns the utility
+     */
+    public static Utility expectedPayout()
+    {
+        return new Utility() {
+
+            @Override
+            public double value(double[] probabilities, int[] payoutTable) {
+                return mean(probabilities, payoutTable);
+            }
+
+            @Override
+            public String toString() {
+                return "expected payout";
+            }
+
+        };
+    }
+
+    /**
+     *Gets the mean-variance utility, the expected payout less a penalty for its variance.
+     *pre: none
+     *post: returns the utility mean - lambda * variance, or throws IllegalArgumentException
+     *      if lambda < 0
+     */
+    public static Utility meanVariance(final double lambda)
+    {
+        // NOTE: A negative lambda would reward variance instead of penalizing it.
+        if(!(lambda >= 0))
+            throw new IllegalArgumentException("meanVariance lambda " + lambda + " < 0");
+
+        return new Utility() {
+
+            @Override
+            public double value(double[] probabilities, int[] payoutTable) {
+                return mean(probabilities, payoutTable) - lambda * variance(probabilities, payoutTable);
+            }
+
+            @Override
+            public String toString() {
+                return "mean - " + lambda + " variance";
+            }
+
+        };
+    }
+
+    /**
+     *Gets the logarithmic (Kelly) utility of a bankroll, which plays safer as it gets smaller.
+     *pre: bankroll in coins bet
+     *post: returns the utility E[log(bankroll - 1 + payout)], or throws
+     *      IllegalArgumentException if bankroll <= 1
+     */
+    public static Utility logWealth(final double bankroll)
+    {
+        // NOTE: A losing hand leaves bankroll - 1 coins, whose log must exist.
+        if(!(bankroll > 1))
+            throw new IllegalArgumentException("kelly bankroll " + bankroll + " <= 1");
+
+        return new Utility() {
+
+            @Override
+            public double value(double[] probabilities, int[] payoutTable) {
+                double result = 0;
+
+                for(int i = 0; i < probabilities.length; ++i)
+                    if(probabilities[i] > 0)
+                        result += probabilities[i] * Math.log(bankroll - 1 + payoutTable[i]);
+
+                return result;
+            }
+
+            @Override
+            public String toString() {
+                return "log wealth from " + bankroll;
+            }
+
+        };
+    }
+
+    /**
+     *Creates a utility by name.
+     *pre: none
+     *post: returns the utility, or throws IllegalArgumentException unless name is "ev",
+     *      "meanVariance:lambda" with lambda >= 0 or "kelly:bankroll" with bankroll > 1
+     */
+    public static Utility create(String name)
+    {
+        String[] parts = name.split(":");
+
+        if(parts[0].equals("ev"))
+            return expectedPayout();
+        if(parts[0].equals("meanVariance") && parts.length == 2)
+            return meanVariance(Double.parseDouble(parts[1]));
+        if(parts[0].equals("kelly") && parts.length == 2)
+            return logWealth(Double.parseDouble(parts[1]));
+
+        throw new IllegalArgumentException("Unknown utility: " + name);
+    }
+
+    public static double mean(double[] probabilities, int[] payoutTable)
+    {
+        double mean = 0;
+
+        for(int i = 0; i < probabilities.length; ++i)
+            mean += probabilities[i] * payoutTable[i];
+
+        return mean;
+    }
+
+    public static double variance(double[] probabilities, int[] payoutTable)
+    {
+        double mean = mean(probabilities, payoutTable);
+        double variance = 0;
+
+        for(int i = 0; i < probabilities.length; ++i)
+            variance += probabilities[i] * (payoutTable[i] - mean) * (payoutTable[i] - mean);
+
+        return variance;
+    }
+}
@@ -1,4 +1,4 @@
-import javax.swing.ImageIcon;
+import java.util.ArrayList;
 
 public class VideoPoker
 {
@@ -11,11 +11,16 @@ public class VideoPoker
                      //1 - pre mulligan, post deal
                      //2 - pre payback, post mulligan
   
-  private static final int PAYBACK[] = {0, 1, 2, 3, 4, 6, 9, 25, 50, 250};
-  private static final int MAX_PAYBACK = 4000;
+  private final Paytable paytable;
   
   public VideoPoker()
   {
+    this(Paytable.JACKS_OR_BETTER);
+  }
+  
+  public VideoPoker(Paytable paytable)
+  {
+    this.paytable = paytable;
     this.deck = new Deck();
     this.player = new Player();
     this.betPool = 0;
@@ -71,7 +76,7 @@ public class VideoPoker
     int winnings;
     if(this.state == 2)
     {
-      winnings = (this.handRank == 9 && this.betPool == 5 ? MAX_PAYBACK : (PAYBACK[this.handRank] * this.betPool));
+      winnings = this.paytable.payout(this.handRank, this.betPool);
       this.player.win(winnings);
       this.state = 0;
       return winnings;
@@ -92,6 +97,11 @@ public class VideoPoker
     return this.betPool;
   }
   
+  public Paytable getPaytable()
+  {
+    return this.paytable;
+  }
+  
   //adds money
   public void addFunds(int amount)
   {
@@ -119,20 +129,20 @@ public class VideoPoker
     }
     
       /**
-     *Gets the images associated with the cards in hand.
-     *pre: hand contains 5 cards
-     *post: returns an array of ImageIcon corresponding to each card in the hand.
+     *Gets the cards in hand. Images are attached by the GUI (see CardImages).
+     *pre: none
+     *post: returns a copy of the player's hand.
      */
-    public ImageIcon[] getCardImages()
+    public ArrayList<Card> getHand()
     {
-        return this.player.getCardImages();
+        return new ArrayList<Card>(this.player.getHand());
     }
   
   //makes a bet if sufficient funds else returns -1
   private boolean makeBet(int amount)
   {
     int temp;
-    if(amount >= 1 && amount <= 5)
+    if(amount >= 1 && amount <= this.paytable.getMaxBet())
     {
       temp = this.player.makeBet(amount);
       if(temp != -1)
@@ -51,7 +51,7 @@ public class VideoPokerGUI extends JFrame {
     private static final int STATE_HOLD     = 2; // The user selects which cards to hold at this state
 
     /*
-     * The back card image, all other images are stored in the card class
+     * The back card image, all other images are stored in CardImages
      */
     private static BufferedImage CARD_BACK_IMAGE;
 
@@ -78,8 +78,6 @@ public class VideoPokerGUI extends JFrame {
             "THREE OF A KIND", "STRAIGHT", "FLUSH", "FULL HOUSE",
             "FOUR OF A KIND", "STRAIGHT FLUSH", "ROYAL FLUSH"};
 
-    private static final int[]  RANK_PAYBACK                    = {0, 1, 2, 3, 4, 6, 9, 25, 50, 250};
-    private static final int    RANK_ROYAL_FLUSH_BIG_PAYBACK    = 800; // Multi'd by 5 when used (fits into the formula un-multi'd)
 
     /*
      * Image dimensions
@@ -392,24 +390,16 @@ public class VideoPokerGUI extends JFrame {
     }
 
     /**
-     * Gets the base payback for a ranked hand
-     * @param  rank the rank of the hand
-     * @return      the base payback
-     */
-    public static int getRankPayback(final int rank) {
-        return ((rank >= 0 && rank < RANK_PAYBACK.length) ? RANK_PAYBACK[rank]: 0);
-    }
-
-    /**
-     * Gets the payback for the rank with the specified bet
+     * Gets the payback for the rank with the specified bet from the game's paytable
      * @param  rank the rank of the hand
      * @param  bet  the amount bet
      * @return      the payback of the bet
      */
-    public static int getRankPayback(final int rank, final int bet) {
-        if (bet <= 0 || bet > 5)
+    public int getRankPayback(final int rank, final int bet) {
+        Paytable paytable = game_logic.getPaytable();
+        if (bet <= 0 || bet > paytable.getMaxBet() || rank < 0 || rank >= RANK_NAME.length)
             return (0);
-        return ((rank == 9 && bet == 5) ? RANK_ROYAL_FLUSH_BIG_PAYBACK * bet : getRankPayback(rank) * bet);
+        return (paytable.payout(rank, bet));
     }
 
     /**
@@ -643,7 +633,7 @@ public class VideoPokerGUI extends JFrame {
             drawBetChart(game_logic.getHandRank(), allFaceUp);
 
             // draw cards
-            ImageIcon cards[] = game_logic.getCardImages();
+            ImageIcon cards[] = CardImages.getCardImages(game_logic.getHand());
             for (int i=0; i<5; ++i) {
                 if (cards[i] != null) {
                     BufferedImage sendImg = new BufferedImage(cards[i].getIconWidth(), cards[i].getIconHeight(), BufferedImage.TYPE_INT_RGB);
@@ -0,0 +1,80 @@
+/**
+ * The xoroshiro128++ generator of Blackman and Vigna: 128 bits of state, period 2^128 - 1.
+ * Splitting seeds the new generator from the next two outputs of this one, mixed with
+ * SplitMix64, so every generator, including those split from split ones, starts at its own
+ * effectively random point of the period. Streams of any practical length then overlap with
+ * negligible chance, about 2^-40 for a million streams of 2^48 draws each.
+ */
+public class Xoroshiro128PlusPlus extends RandomSource implements SaveableSource
+{
+    private long s0;
+    private long s1;
+
+    /**
+     *Constructor method, expanding the seed with SplitMix64 so that similar seeds give unrelated
+     *streams.
+     *pre: none
+     *post: state is initialised from seed
+     */
+    public Xoroshiro128PlusPlus(long seed)
+    {
+        long x = seed;
+        this.s0 = splitMix64(x += 0x9e3779b97f4a7c15L);
+        this.s1 = splitMix64(x + 0x9e3779b97f4a7c15L);
+    }
+
+    private Xoroshiro128PlusPlus(long s0, long s1)
+    {
+        this.s0 = s0;
+        this.s1 = s1;
+    }
+
+    @Override
+    public long nextLong()
+    {
+        long t0 = s0;
+        long t1 = s1;
+        long result = Long.rotateLeft(t0 + t1, 17) + t0;
+
+        t1 ^= t0;
+        s0 = Long.rotateLeft(t0, 49) ^ t1 ^ (t1 << 21);
+        s1 = Long.rotateLeft(t1, 28);
+
+        return result;
+    }
+
+    // NOTE: Not a jump: a child given this stream while this one jumps ahead
+    // lands on a later child's stream as soon as either splits again.
+    @Override
+    public RandomSource split()
+    {
+        long t0 = splitMix64(nextLong());
+        long t1 = splitMix64(nextLong());
+
+        // NOTE: The all zero state is the one state xoroshiro cannot leave.
+        if((t0 | t1) == 0)
+            t1 = 0x9e3779b97f4a7c15L;
+
+        return new Xoroshiro128PlusPlus(t0, t1);
+    }
+
+    @Override
+    public long[] getState()
+    {
+        return new long[] { s0, s1 };
+    }
+
+    @Override
+    public void setState(long[] state)
+    {
+        s0 = state[0];
+        s1 = state[1];
+    }
+
+    private static long splitMix64(long z)
+    {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,42 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+/**
+ * Checks HandEvaluator against Player's original evaluator over every five card hand.
+ */
+public class HandEvaluatorTest
+{
+    @Test
+    public void ranksEveryHandAsPlayerDoes()
+    {
+        Card[] deck = new Card[Card.NUM_CARDS];
+        for(int i = 0; i < deck.length; ++i)
+            deck[i] = Card.of(i);
+
+        Player player = new Player();
+        int[] cards = { 0, 1, 2, 3, 4 };
+        int[] counts = new int[Poker.numRanks];
+
+        for(int i = 0; i < cards.length; ++i)
+            player.addCard(deck[cards[i]]);
+
+        do {
+            for(int i = 0; i < cards.length; ++i)
+                player.setCard(i, deck[cards[i]]);
+
+            int rank = HandEvaluator.rank(cards);
+            int expected = player.getSortedHandRank();
+            counts[rank] += 1;
+
+            // NOTE: Only builds a message on a mismatch, there are 2,598,960 hands.
+            if(rank != expected
+               || HandEvaluator.rank(cards[0], cards[1], cards[2], cards[3], cards[4]) != rank)
+                fail("Rank " + rank + " of " + player.getHand() + ", expected " + expected);
+        } while(ExactStrategy.nextCombination(cards, cards.length, deck.length));
+
+        for(int i = 0; i < Poker.numRanks; ++i)
+            assertEquals(Poker.handName(i), Poker.preDrawFrequency(i), counts[i]);
+    }
+}